@@ -0,0 +1,75 @@
+package study.datajpa.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+// 벤치마크용 스프링 컨텍스트. 기본은 웹 서버 없이 메모리 H2 위에서 애플리케이션 설정 그대로 띄운다.
+// 측정값이 로그 출력에 묻히지 않도록 SQL 로그만 끈다.
+public final class BenchmarkContext {
+
+    public static final int MEMBERS_PER_TEAM = 10;
+    public static final int USERNAMES = 100; // username 하나당 size / 100 명
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String database, String... properties) {
+        return start(WebApplicationType.NONE, database, properties);
+    }
+
+    // 부하 벤치마크용. 톰캣을 임의 포트로 띄운다. 포트는 local.server.port 로 꺼낸다.
+    public static ConfigurableApplicationContext startWeb(String database, String... properties) {
+        String[] web = Stream.concat(Stream.of("server.port=0"), Arrays.stream(properties)).toArray(String[]::new);
+        return start(WebApplicationType.SERVLET, database, web);
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String database, String... properties) {
+        String[] defaults = {
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "logging.level.org.hibernate.SQL=warn",
+                "decorator.datasource.p6spy.enable-logging=false"
+        };
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(type)
+                .properties(Stream.concat(Arrays.stream(defaults), Arrays.stream(properties)).toArray(String[]::new))
+                .run();
+    }
+
+    // size 명의 회원과 size / 10 개의 팀. username 은 member0 ~ member99 가 반복된다. age 는 0 ~ 49
+    public static void seedMembers(ConfigurableApplicationContext context, int size) {
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, size / MEMBERS_PER_TEAM); i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamRepository.saveAll(teams);
+
+        List<Member> members = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            members.add(new Member("member" + (i % USERNAMES), i % 50, teams.get(i % teams.size())));
+        }
+        memberRepository.saveAllBatched(members, 100);
+    }
+
+    public static TransactionTemplate readOnlyTransaction(ConfigurableApplicationContext context) {
+        TransactionTemplate template = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        template.setReadOnly(true);
+        return template;
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 회원 + 팀 조회 : jpql 페치 조인 vs @EntityGraph("Member.all")
+// 둘 다 팀 이름까지 읽어서 지연 로딩이 남아있지 않은지 같이 확인한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FetchJoinBenchmark {
+
+    @Param({"1000", "10000"})
+    int size;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate readOnly;
+    MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("fetchJoin" + size);
+        BenchmarkContext.seedMembers(context, size);
+        readOnly = BenchmarkContext.readOnlyTransaction(context);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void fetchJoin(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> consumeTeams(memberRepository.findMemberFetchJoin(), blackhole));
+    }
+
+    @Benchmark
+    public void entityGraph(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> consumeTeams(memberRepository.findAll(), blackhole));
+    }
+
+    private static void consumeTeams(List<Member> members, Blackhole blackhole) {
+        for (Member member : members) {
+            blackhole.consume(member.getTeam().getName());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import study.datajpa.id.TimeSortedIds;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// id 전략별 insert 처리량과 PK 인덱스 크기
+// - sequence : 예전 Member / Team (시퀀스, allocationSize 50 -> 50 건마다 시퀀스 조회 1번)
+// - uuid : 예전 Item (호출한 쪽이 정한 랜덤 문자열 키)
+// - tsid : TimeSortedIds 64 비트 숫자 (지금 Member / Team)
+// - tsid32 : TimeSortedIds 13 자리 문자열 (지금 Item)
+// JPA 를 거치지 않고 JDBC batch insert (1000 건) 로 id 전략 차이만 본다.
+// 측정이 끝나면 테이블이 차지하는 크기 (DISK_SPACE_USED, 바이트) 와 행 수를 로그로 남긴다. 랜덤 키는 페이지가 쪼개져서 같은 행 수라도 더 크다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdStrategyBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(IdStrategyBenchmark.class);
+
+    private static final int BATCH = 1000;
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Param({"sequence", "uuid", "tsid", "tsid32"})
+    String strategy;
+
+    Path directory;
+    Connection connection;
+    PreparedStatement insert;
+    PreparedStatement nextSequence;
+    TimeSortedIds ids;
+    long sequenceHi;
+    int sequenceLeft;
+    int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // 메모리 DB 는 페이지 크기를 재기 어렵다. -> 임시 디렉토리의 파일 DB
+        directory = Files.createTempDirectory("id-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:" + directory.resolve("ids").toAbsolutePath(), "sa", "");
+        connection.setAutoCommit(false);
+
+        String idType = strategy.equals("sequence") || strategy.equals("tsid") ? "bigint" : "varchar(36)";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table item (id " + idType + " primary key, name varchar(255))");
+            statement.execute("create sequence item_seq start with 1 increment by " + ALLOCATION_SIZE);
+        }
+        insert = connection.prepareStatement("insert into item (id, name) values (?, ?)");
+        nextSequence = connection.prepareStatement("select next value for item_seq");
+        ids = TimeSortedIds.forNode(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select disk_space_used('ITEM'), count(*) from item")) {
+            resultSet.next();
+            long bytes = resultSet.getLong(1);
+            long rows = resultSet.getLong(2);
+            log.info("[{}] rows = {}, table + index = {} bytes ({} bytes/row)",
+                    strategy, rows, bytes, rows == 0 ? 0 : bytes / rows);
+        }
+        connection.close();
+        try (var paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH; i++) {
+            switch (strategy) {
+                case "sequence": insert.setLong(1, nextSequenceId()); break;
+                case "uuid": insert.setString(1, UUID.randomUUID().toString()); break;
+                case "tsid": insert.setLong(1, ids.nextId()); break;
+                default: insert.setString(1, ids.nextBase32());
+            }
+            insert.setString(2, "item" + sequence++);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    // 하이버네이트 pooled optimizer 와 같은 방식 : 시퀀스 값 하나로 ALLOCATION_SIZE 개를 쓴다.
+    private long nextSequenceId() throws SQLException {
+        if (sequenceLeft == 0) {
+            try (ResultSet resultSet = nextSequence.executeQuery()) {
+                resultSet.next();
+                sequenceHi = resultSet.getLong(1);
+            }
+            sequenceLeft = ALLOCATION_SIZE;
+        }
+        return sequenceHi + (ALLOCATION_SIZE - sequenceLeft--);
+    }
+}
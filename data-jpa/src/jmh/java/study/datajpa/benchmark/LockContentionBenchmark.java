@@ -0,0 +1,82 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.OptimisticRetryExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// 같은 row 를 여러 스레드가 동시에 수정할 때 비관적 락 (select for update) vs 낙관적 락 (@Version + 재시도)
+// 한 번의 측정 = updaters 개 스레드가 각자 UPDATES_PER_UPDATER 번씩 age + 1
+// 처리량 (updates/sec) = updaters * UPDATES_PER_UPDATER / 측정 시간
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LockContentionBenchmark {
+
+    private static final String USERNAME = "contended";
+    private static final int UPDATES_PER_UPDATER = 20;
+
+    @Param({"pessimistic", "optimistic"})
+    String strategy;
+
+    @Param({"8", "16", "32", "64"})
+    int updaters;
+
+    ConfigurableApplicationContext context;
+    ExecutorService executor;
+    MemberRepository memberRepository;
+    TransactionTemplate transaction;
+    OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 64 개 스레드가 동시에 대기하기 때문에 풀과 락 대기 시간을 넉넉하게 준다.
+        context = BenchmarkContext.start("contention;LOCK_TIMEOUT=30000",
+                "spring.datasource.hikari.maximum-pool-size=" + (updaters + 2),
+                "optimistic.retry.max-attempts=1000");
+        memberRepository = context.getBean(MemberRepository.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        optimisticRetryExecutor = context.getBean(OptimisticRetryExecutor.class);
+        memberRepository.save(new Member(USERNAME, 0));
+        executor = Executors.newFixedThreadPool(updaters);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public void contendedUpdates() throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < updaters; i++) {
+            futures.add(executor.submit(() -> {
+                for (int n = 0; n < UPDATES_PER_UPDATER; n++) {
+                    if ("pessimistic".equals(strategy)) {
+                        transaction.executeWithoutResult(status -> increment(memberRepository.findLockByUsername(USERNAME)));
+                    } else {
+                        optimisticRetryExecutor.run(() -> increment(memberRepository.findMemberByUsername(USERNAME)));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private static void increment(Member member) {
+        member.setAge(member.getAge() + 1);
+    }
+}
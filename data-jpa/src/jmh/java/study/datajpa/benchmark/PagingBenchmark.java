@@ -0,0 +1,76 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+// 순수 JPA 페이징 (findByPage + totalCount) vs Spring Data JPA Page (findByAge)
+// page 가 깊어질수록 offset 비용이 얼마나 늘어나는지 같이 본다.
+// age 가 AGE 인 회원은 size / 50 명뿐이다. -> 깊은 페이지는 고정 번호가 아니라 조건에 맞는 회원의 마지막 꽉 찬 페이지로 정한다.
+// (고정 page = 100 이면 size 100000 미만에서는 빈 페이지를 재게 된다.)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PagingBenchmark {
+
+    // jmh 소스셋에는 lombok 이 없다.
+    private static final Logger log = LoggerFactory.getLogger(PagingBenchmark.class);
+
+    private static final int AGE = 10;
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    @Param({"first", "last"})
+    String position;
+
+    int page;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate readOnly;
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("paging" + size);
+        BenchmarkContext.seedMembers(context, size);
+        readOnly = BenchmarkContext.readOnlyTransaction(context);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+
+        long matching = readOnly.execute(status -> memberJpaRepository.totalCount(AGE));
+        page = position.equals("first") ? 0 : (int) Math.max(0, matching / PAGE_SIZE - 1);
+        log.info("[size {}, {}] matching = {}, page = {} (offset {})",
+                size, position, matching, page, (long) page * PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void jpaFindByPage(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> {
+            blackhole.consume(memberJpaRepository.findByPage(AGE, page * PAGE_SIZE, PAGE_SIZE));
+            blackhole.consume(memberJpaRepository.totalCount(AGE));
+        });
+    }
+
+    @Benchmark
+    public void dataJpaFindByAge(Blackhole blackhole) {
+        PageRequest pageRequest = PageRequest.of(page, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "username"));
+        readOnly.executeWithoutResult(status -> blackhole.consume(memberRepository.findByAge(AGE, pageRequest)));
+    }
+}
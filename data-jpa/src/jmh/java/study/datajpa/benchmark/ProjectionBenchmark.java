@@ -0,0 +1,75 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.UsernameOnly;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+// 엔티티 조회 vs 인터페이스 프로젝션 vs DTO 프로젝션
+// username 하나당 size / 100 명이 조회된다. findMemberDto 는 조인해서 전체를 조회한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+
+    private static final String USERNAME = "member7";
+
+    @Param({"1000", "10000"})
+    int size;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate readOnly;
+    MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("projection" + size);
+        BenchmarkContext.seedMembers(context, size);
+        readOnly = BenchmarkContext.readOnlyTransaction(context);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void entity(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> blackhole.consume(memberRepository.findByUsername(USERNAME)));
+    }
+
+    // 오픈 프로젝션 UsernameOnly : 필요한 컬럼만 조회 (OpenProjectionCompiler) vs 스프링 데이터 (엔티티 전체 조회 + 매번 SpEL 평가)
+    // 스프링 데이터 프로젝션은 getter 를 부를 때 평가하기 때문에 두 쪽 모두 getter 까지 부른다.
+    @Benchmark
+    public void interfaceProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findProjectionsByUsername(USERNAME)
+                .forEach(projection -> blackhole.consume(projection.getUsername())));
+    }
+
+    @Benchmark
+    public void springOpenProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> memberRepository.findProjectionDtoGenericByUsername(USERNAME, UsernameOnly.class)
+                .forEach(projection -> blackhole.consume(projection.getUsername())));
+    }
+
+    @Benchmark
+    public void dtoProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> blackhole.consume(memberRepository.findProjectionsDtoByUsername(USERNAME)));
+    }
+
+    @Benchmark
+    public void dtoJoinProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> blackhole.consume(memberRepository.findMemberDto()));
+    }
+
+    @Benchmark
+    public void nativeProjection(Blackhole blackhole) {
+        readOnly.executeWithoutResult(status -> blackhole.consume(memberRepository.findByNativeProjection(PageRequest.of(0, 100))));
+    }
+}
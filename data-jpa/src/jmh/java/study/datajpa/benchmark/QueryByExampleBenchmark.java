@@ -0,0 +1,63 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+// Query By Example : 스프링 데이터 QBE (findAll(Example)) vs ExampleSpecificationCompiler (findAllByExample)
+// probe = username + team.name. 스프링 QBE 는 기본형 age 를 무시하도록 withIgnorePaths("age") 를 준다. (두 쪽 조건을 같게)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryByExampleBenchmark {
+
+    private static final String USERNAME = "member7";
+    private static final String TEAM = "team7";
+
+    @Param({"1000", "10000"})
+    int size;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate readOnly;
+    MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("qbe" + size);
+        BenchmarkContext.seedMembers(context, size);
+        readOnly = BenchmarkContext.readOnlyTransaction(context);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 실제 요청처럼 매번 새 probe 를 만든다.
+    private static Member probe() {
+        Member probe = new Member(USERNAME);
+        probe.setTeam(new Team(TEAM));
+        return probe;
+    }
+
+    @Benchmark
+    public void springQueryByExample(Blackhole blackhole) {
+        Example<Member> example = Example.of(probe(), ExampleMatcher.matching().withIgnorePaths("age"));
+        readOnly.executeWithoutResult(status -> blackhole.consume(memberRepository.findAll(example)));
+    }
+
+    @Benchmark
+    public void compiledExample(Blackhole blackhole) {
+        Example<Member> example = Example.of(probe());
+        readOnly.executeWithoutResult(status -> blackhole.consume(memberRepository.findAllByExample(example)));
+    }
+}
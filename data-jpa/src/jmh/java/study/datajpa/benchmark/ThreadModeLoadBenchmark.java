@@ -0,0 +1,72 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// MemberController 부하 : 플랫폼 스레드 (톰캣 기본 200 개) vs 가상 스레드 + 커넥션 풀 크기 세마포어
+// 클라이언트 256 개가 동시에 /members 페이지를 요청한다. SampleTime 결과의 p0.99 / p0.999 로 꼬리 지연을 비교한다.
+// 가상 스레드 모드에서 acquire-timeout 안에 차례가 오지 않은 요청은 503 으로 빨리 끝난다. -> rejected 로 따로 센다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(256)
+public class ThreadModeLoadBenchmark {
+
+    private static final int MEMBERS = 10_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startWeb("load" + mode,
+                "web.virtual-threads.enabled=" + "virtual".equals(mode),
+                "spring.datasource.hikari.maximum-pool-size=10",
+                "sql.budget.enabled=false");
+        BenchmarkContext.seedMembers(context, MEMBERS);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long ok;
+        public long rejected;
+    }
+
+    @Benchmark
+    public int memberPage(Responses responses) throws Exception {
+        int page = ThreadLocalRandom.current().nextInt(MEMBERS / PAGE_SIZE);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/members?size=" + PAGE_SIZE + "&page=" + page))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 503) {
+            responses.rejected++;
+        } else {
+            responses.ok++;
+        }
+        return response.statusCode();
+    }
+}
@@ -2,14 +2,19 @@ package study.datajpa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.audit.AuditHistoryProperties;
+import study.datajpa.audit.CachedAuditorAware;
+import study.datajpa.audit.TransactionDateTimeProvider;
 
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+@EnableConfigurationProperties(AuditHistoryProperties.class)
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -22,8 +27,18 @@ public class DataJpaApplication {
     // 실제로는 세션에서 꺼내서 쓴다.
     // 가끔 createdBy 는 NULL 데이터를 넣는 경우가 있는데 추천하지 않는다.
     // 대부분의 경우 데이터가 널이면 고통스럽다.
+    // 엔티티마다 구하지 않고 요청 / 트랜잭션당 한 번만 구한다.
+    // UUID.randomUUID() 는 SecureRandom 을 쓴다. 임시 값이므로 ThreadLocalRandom 으로 충분하다.
     @Bean
     public AuditorAware<String> auditorProvider() {
-        return () -> Optional.of(UUID.randomUUID().toString());
+        return new CachedAuditorAware(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return new UUID(random.nextLong(), random.nextLong()).toString();
+        });
+    }
+
+    @Bean
+    public TransactionDateTimeProvider auditingDateTimeProvider() {
+        return new TransactionDateTimeProvider();
     }
 }
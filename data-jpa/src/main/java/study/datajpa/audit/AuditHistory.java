@@ -0,0 +1,29 @@
+package study.datajpa.audit;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+// 변경 이력 (추가만 하는 테이블)
+// AuditHistoryWriter 가 JdbcTemplate 으로 모아서 insert 한다. 엔티티는 테이블 생성과 조회용이다.
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Entity
+public class AuditHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String entityName;
+    private String entityId;
+    private String action;
+    private String auditor;
+    private LocalDateTime occurredAt;
+}
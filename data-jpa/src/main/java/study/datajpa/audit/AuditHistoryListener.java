@@ -0,0 +1,59 @@
+package study.datajpa.audit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// audit.history.enabled=true 일 때만 AuditHistoryWriter 빈이 있고, 그때만 이력을 남긴다.
+// EntityManagerFactory 를 만드는 중에 리스너가 생성되기 때문에 ObjectProvider 로 나중에 꺼낸다.
+public class AuditHistoryListener {
+
+    private final ObjectProvider<AuditHistoryWriter> writer;
+    private final ObjectProvider<EntityManagerFactory> emf;
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+    private final ObjectProvider<TransactionDateTimeProvider> dateTimeProvider;
+
+    public AuditHistoryListener(ObjectProvider<AuditHistoryWriter> writer,
+                                ObjectProvider<EntityManagerFactory> emf,
+                                ObjectProvider<AuditorAware<String>> auditorAware,
+                                ObjectProvider<TransactionDateTimeProvider> dateTimeProvider) {
+        this.writer = writer;
+        this.emf = emf;
+        this.auditorAware = auditorAware;
+        this.dateTimeProvider = dateTimeProvider;
+    }
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        record(entity, "PERSIST");
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        record(entity, "UPDATE");
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        record(entity, "REMOVE");
+    }
+
+    private void record(Object entity, String action) {
+        AuditHistoryWriter historyWriter = writer.getIfAvailable();
+        if (historyWriter == null) {
+            return;
+        }
+
+        Object id = emf.getObject().getPersistenceUnitUtil().getIdentifier(entity);
+        historyWriter.record(new AuditRecord(
+                entity.getClass().getSimpleName(),
+                String.valueOf(id),
+                action,
+                auditorAware.getObject().getCurrentAuditor().orElse(null),
+                dateTimeProvider.getObject().now()));
+    }
+}
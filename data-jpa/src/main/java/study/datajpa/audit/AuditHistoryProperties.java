@@ -0,0 +1,19 @@
+package study.datajpa.audit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("audit.history")
+public class AuditHistoryProperties {
+
+    private boolean enabled = false;
+    private int batchSize = 500;
+    private int queueCapacity = 10_000;
+    // 배치가 다 차지 않아도 이 시간이 지나면 쓴다.
+    private Duration flushInterval = Duration.ofMillis(200);
+}
@@ -0,0 +1,130 @@
+package study.datajpa.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 변경 이력을 flush 안에서 바로 쓰지 않고, 커밋된 뒤 큐에 넣어서 백그라운드 스레드가 batch insert 한다.
+// 롤백된 트랜잭션의 이력은 남지 않는다.
+// 큐가 가득 차면 요청 스레드를 막지 않고 버린다. (dropped 로 확인)
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "audit.history", name = "enabled", havingValue = "true")
+public class AuditHistoryWriter {
+
+    private static final String INSERT_SQL = "insert into audit_history " +
+            "(entity_name, entity_id, action, auditor, occurred_at) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditHistoryProperties properties;
+    private final BlockingQueue<AuditRecord> queue;
+    private final TransactionScopedValue<List<AuditRecord>> pending = new TransactionScopedValue<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public AuditHistoryWriter(JdbcTemplate jdbcTemplate, AuditHistoryProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    public void record(AuditRecord record) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            offer(record);
+            return;
+        }
+        pending.get(this::pendingForTransaction).add(record);
+    }
+
+    // 트랜잭션마다 한 번만 afterCommit 을 등록하고, 이력은 리스트에 모은다.
+    private List<AuditRecord> pendingForTransaction() {
+        List<AuditRecord> records = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                records.forEach(AuditHistoryWriter.this::offer);
+            }
+        });
+        return records;
+    }
+
+    private void offer(AuditRecord record) {
+        if (!queue.offer(record) && dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("변경 이력 큐가 가득 찼습니다. dropped = {}", dropped.get());
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "audit-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(properties.getFlushInterval().toMillis() * 5);
+        flush(); // 남은 이력을 쓰고 끝낸다.
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                AuditRecord first = queue.poll(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<AuditRecord> batch = new ArrayList<>(properties.getBatchSize());
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("변경 이력 쓰기 실패", e);
+            }
+        }
+    }
+
+    // 큐에 남아있는 이력을 호출한 스레드에서 바로 쓴다.
+    public void flush() {
+        List<AuditRecord> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuditRecord> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, record) -> {
+            ps.setString(1, record.getEntityName());
+            ps.setString(2, record.getEntityId());
+            ps.setString(3, record.getAction());
+            ps.setString(4, record.getAuditor());
+            ps.setTimestamp(5, Timestamp.valueOf(record.getOccurredAt()));
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.audit;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Getter
+@RequiredArgsConstructor
+public class AuditRecord {
+
+    private final String entityName;
+    private final String entityId;
+    private final String action;
+    private final String auditor;
+    private final LocalDateTime occurredAt;
+}
@@ -0,0 +1,37 @@
+package study.datajpa.audit;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// AuditingEntityListener 는 엔티티를 저장/수정할 때마다 auditor 를 물어본다.
+// 요청 안이면 요청당 한 번, 아니면 트랜잭션당 한 번만 실제로 구하고 나머지는 캐시한 값을 준다.
+public class CachedAuditorAware implements AuditorAware<String> {
+
+    private static final String REQUEST_ATTRIBUTE = CachedAuditorAware.class.getName() + ".auditor";
+
+    private final Supplier<String> resolver;
+    private final TransactionScopedValue<String> transactionAuditor = new TransactionScopedValue<>();
+
+    public CachedAuditorAware(Supplier<String> resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return Optional.of(transactionAuditor.get(resolver));
+        }
+
+        String auditor = (String) request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (auditor == null) {
+            auditor = resolver.get();
+            request.setAttribute(REQUEST_ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.of(auditor);
+    }
+}
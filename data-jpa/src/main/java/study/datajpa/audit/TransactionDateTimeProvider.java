@@ -0,0 +1,24 @@
+package study.datajpa.audit;
+
+import org.springframework.data.auditing.DateTimeProvider;
+
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+// @CreatedDate / @LastModifiedDate 에 쓰는 시간
+// 기본 CurrentDateTimeProvider 는 엔티티마다 LocalDateTime.now() 를 새로 만든다.
+// 여기서는 트랜잭션 시작 후 처음 물어본 시간을 트랜잭션 끝까지 쓴다. -> DB 의 now() 처럼 같은 트랜잭션의 변경은 같은 시간을 가진다.
+public class TransactionDateTimeProvider implements DateTimeProvider {
+
+    private final TransactionScopedValue<LocalDateTime> transactionNow = new TransactionScopedValue<>();
+
+    @Override
+    public Optional<TemporalAccessor> getNow() {
+        return Optional.of(now());
+    }
+
+    public LocalDateTime now() {
+        return transactionNow.get(LocalDateTime::now);
+    }
+}
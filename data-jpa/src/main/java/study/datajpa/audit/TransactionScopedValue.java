@@ -0,0 +1,44 @@
+package study.datajpa.audit;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+// 트랜잭션 하나 동안 한 번만 계산하고 재사용하는 값
+// 트랜잭션 리소스로 묶어 두고, 트랜잭션이 끝나면 풀어준다. REQUIRES_NEW 로 중단된 동안에는 새 트랜잭션이 따로 계산한다.
+// 트랜잭션 밖에서는 매번 계산한다.
+class TransactionScopedValue<T> {
+
+    @SuppressWarnings("unchecked")
+    public T get(Supplier<T> supplier) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return supplier.get();
+        }
+
+        Object held = TransactionSynchronizationManager.getResource(this);
+        if (held != null) {
+            return (T) held;
+        }
+
+        T value = supplier.get();
+        TransactionSynchronizationManager.bindResource(this, value);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(TransactionScopedValue.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(TransactionScopedValue.this, value);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedValue.this);
+            }
+        });
+        return value;
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+import study.datajpa.support.RepositoryMetricsInterceptor;
+
+// 모든 Spring Data 리포지토리 프록시에 RepositoryMetricsInterceptor 를 가장 바깥쪽 advice 로 추가한다.
+// 트랜잭션 시작 / 커밋 시간까지 포함해서 측정된다.
+// 스프링 부트 기본 리포지토리 메트릭(spring.data.repository.invocations)은 결과 row 수와 쿼리 종류를 모르기 때문에 끄고 대신 사용한다.
+@Configuration
+public class RepositoryMetricsConfig {
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 만들어져야 하기 때문에 static 으로 등록한다.
+    // MeterRegistry 는 첫 호출 시점에 가져온다.
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        SingletonSupplier<MeterRegistry> registry = SingletonSupplier.of(meterRegistry::getObject);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(0, new RepositoryMetricsInterceptor(registry, repositoryInformation))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import study.datajpa.datasource.ReadWriteRoutingDataSource;
+import study.datajpa.datasource.RoutingDataSourceProperties;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// datasource.routing.enabled=true 일 때만 스프링 부트 기본 DataSource 대신 읽기/쓰기 분리 DataSource 를 사용한다.
+// primary 는 spring.datasource / spring.datasource.hikari 설정을 그대로 사용한다.
+//
+// 하이버네이트는 기본으로 세션 (영속성 컨텍스트) 이 끝날 때까지 커넥션을 잡고 있다. OSIV 면 세션이 요청 전체다.
+// -> 요청의 첫 트랜잭션이 읽기 전용이면 복제본 커넥션을 요청 끝까지 잡고, 뒤의 쓰기 트랜잭션도 복제본에서 실행된다.
+// 라우팅을 쓸 때는 트랜잭션이 끝날 때마다 커넥션을 반납한다. -> 트랜잭션마다 다시 라우팅한다.
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, RoutingDataSourceProperties routingProperties,
+                                 Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        // 스프링 부트 기본 DataSource 처럼 spring.datasource.hikari.* (풀 크기, 타임아웃 ...) 를 바인딩한다.
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        List<RoutingDataSourceProperties.Replica> replicaProperties = routingProperties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            RoutingDataSourceProperties.Replica replica = replicaProperties.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            replicas.put(dataSource.getPoolName(), dataSource);
+        }
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replicas,
+                routingProperties.getLagQuery(), routingProperties.getMaxLag(), routingProperties.getHealthCheckInterval());
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package study.datajpa.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import study.datajpa.datasource.HikariPools;
+import study.datajpa.support.ConnectionLimitFilter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+
+// web.virtual-threads.enabled=true 일 때만 톰캣 요청 처리와 MVC 비동기 처리를 가상 스레드로 실행한다.
+// 요청 스레드가 그대로 리포지토리를 호출하기 때문에 JDBC 대기 동안 플랫폼 스레드를 잡고 있지 않는다.
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "web.virtual-threads", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(VirtualThreadProperties.class)
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    // StreamingResponseBody 같은 MVC 비동기 처리도 가상 스레드로 실행한다.
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConnectionLimitFilter> connectionLimitFilter(VirtualThreadProperties properties,
+                                                                               DataSource dataSource,
+                                                                               MeterRegistry meterRegistry) {
+        int permits = properties.getConnectionPermits() > 0
+                ? properties.getConnectionPermits()
+                : HikariPools.maximumPoolSize(dataSource);
+        ConnectionLimitFilter filter = new ConnectionLimitFilter(permits, properties.getAcquireTimeout());
+        log.info("가상 스레드 모드 : 동시 DB 요청 {} 개로 제한", permits);
+
+        Gauge.builder("web.connection.limit.available", filter, ConnectionLimitFilter::getAvailablePermits)
+                .register(meterRegistry);
+        Gauge.builder("web.connection.limit.waiting", filter, ConnectionLimitFilter::getQueueLength)
+                .register(meterRegistry);
+
+        FilterRegistrationBean<ConnectionLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/members", "/members/*", "/members2/*");
+        return registration;
+    }
+}
@@ -0,0 +1,19 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("web.virtual-threads")
+public class VirtualThreadProperties {
+
+    private boolean enabled = false;
+    // 동시에 DB 를 쓸 수 있는 요청 수. 0 이면 HikariCP maximum-pool-size 를 그대로 쓴다.
+    private int connectionPermits = 0;
+    // 이 시간 안에 차례가 오지 않으면 503
+    private Duration acquireTimeout = Duration.ofSeconds(1);
+}
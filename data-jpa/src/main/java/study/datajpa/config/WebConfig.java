@@ -0,0 +1,33 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import study.datajpa.controller.MemberIdConverter;
+import study.datajpa.repository.MemberByIdLoader;
+import study.datajpa.support.SqlBudgetInterceptor;
+import study.datajpa.support.SqlBudgetProperties;
+import study.datajpa.support.SqlStatementCounter;
+
+@Configuration
+@EnableConfigurationProperties(SqlBudgetProperties.class)
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final SqlBudgetProperties sqlBudgetProperties;
+    private final MemberByIdLoader memberByIdLoader;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlBudgetInterceptor(sqlStatementCounter, sqlBudgetProperties));
+    }
+
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(new MemberIdConverter(memberByIdLoader));
+    }
+}
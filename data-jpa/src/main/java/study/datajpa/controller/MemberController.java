@@ -2,50 +2,100 @@ package study.datajpa.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.CursorSlice;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberByIdLoader;
+import study.datajpa.repository.MemberPagingRepository;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.support.SqlBudget;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
 
 @RequiredArgsConstructor
 @RestController
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final MemberPagingRepository memberPagingRepository;
+    private final MemberByIdLoader memberByIdLoader;
 
+    // 같은 id / 비슷한 시점의 다른 id 조회를 모아서 한 번에 조회한다.
+    // 조회는 로더 스레드에서 실행되어 요청 SqlScope 에 잡히지 않는다. -> @SqlBudget 을 두지 않는다. (member.loader.* 메트릭으로 본다.)
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+        Member member = memberByIdLoader.findById(id).get();
         return member.getUsername();
     }
 
     // 도메인 클래스 컨버터 를 통해서 엔티티를 바로 받을 수 있다.
     // 하지만 권장하지 않는다.
     // 단순 조회용만으로 써야한다. 그 이유는 OSIV 설정에 따라 영속성 컨텍스트에서 벗어난 엔티티일 수도 있기 때문이다.
+    // 지금은 MemberIdConverter 가 MemberByIdLoader 로 조회한다. -> 항상 준영속 엔티티다. (@SqlBudget 없음, 위와 같은 이유)
     @GetMapping("/members2/{id}")
     public String findMember(@PathVariable("id") Member member) {
         return member.getUsername();
     }
 
+    @SqlBudget(2) // 컨텐츠 + count
     @GetMapping("/members")
     public Page<MemberDto> list(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
 //        Page<Member> page = memberRepository.findAll(pageable);
 //        Page<MemberDto> map = page.map(member -> new MemberDto(member.getId(), member.getUsername(), null)); // DTO 변환
-        return memberRepository.findAll(pageable)
+        return memberPagingRepository.findAll(pageable) // totalCount 는 count 캐시를 거친다.
                 .map(MemberDto::new); // Member 엔티티를 받는 생성자가 있기 떄문에 가능함.
     }
 
+    // 커서 기반 조회. 페이지가 깊어져도 offset 만큼 읽고 버리지 않고, count 쿼리도 나가지 않는다.
+    // size 는 Pageable 로 받아서 max-page-size 제한을 그대로 적용받는다. (page, sort 는 무시)
+    @SqlBudget(1)
+    @GetMapping("/members/keyset")
+    public CursorSlice<MemberDto> keysetList(@RequestParam(value = "cursor", required = false) String cursor,
+                                             @PageableDefault(size = 5) Pageable pageable) {
+        PageRequest pageRequest = PageRequest.of(0, pageable.getPageSize());
+
+        Slice<Member> slice;
+        if (cursor == null) {
+            slice = memberRepository.findFirstKeysetPage(pageRequest);
+        } else {
+            MemberCursor after = decodeCursor(cursor);
+            slice = memberRepository.findKeysetPageAfter(after, pageRequest);
+        }
+
+        List<Member> content = slice.getContent();
+        String nextCursor = slice.hasNext() ? MemberCursor.of(content.get(content.size() - 1)).encode() : null;
+        return new CursorSlice<>(slice.map(MemberDto::new).getContent(), nextCursor, slice.hasNext());
+    }
+
+    // 클라이언트가 보낸 커서가 깨졌으면 500 이 아니라 400
+    private static MemberCursor decodeCursor(String cursor) {
+        try {
+            return MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
 //    @PostConstruct
     public void init() {
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("member " + i, i));
+            members.add(new Member("member " + i, i));
         }
+        memberRepository.saveAllBatched(members, 100);
     }
 }
@@ -0,0 +1,109 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberQueryRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// 전체 회원 내보내기
+// 조회 결과를 리스트로 모으지 않고, 읽는 대로 응답에 써서 chunked 로 내려보낸다.
+// StreamingResponseBody 는 요청 스레드가 아닌 비동기 스레드에서 실행된다. -> OSIV 영속성 컨텍스트가 없으므로 트랜잭션을 직접 연다.
+@RestController
+public class MemberExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final MemberQueryRepository memberQueryRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final int flushInterval;
+
+    public MemberExportController(MemberQueryRepository memberQueryRepository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${member.export.fetch-size:500}") int fetchSize,
+                                  @Value("${member.export.flush-interval:1000}") int flushInterval) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize 는 1 이상이어야 합니다. fetchSize = " + fetchSize);
+        }
+        if (flushInterval < 1) {
+            throw new IllegalArgumentException("flushInterval 은 1 이상이어야 합니다. flushInterval = " + flushInterval);
+        }
+        this.memberQueryRepository = memberQueryRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.flushInterval = flushInterval;
+    }
+
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write("id,username,teamName\n");
+            }
+
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<MemberDto> members = memberQueryRepository.streamAllMemberDtos(fetchSize)) {
+                    int count = 0;
+                    Iterator<MemberDto> iterator = members.iterator();
+                    while (iterator.hasNext()) {
+                        MemberDto member = iterator.next();
+                        writer.write(csv ? toCsv(member) : objectMapper.writeValueAsString(member));
+                        writer.write('\n');
+                        if (++count % flushInterval == 0) {
+                            writer.flush(); // 버퍼에 쌓아두지 않고 chunk 단위로 클라이언트에게 보낸다.
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .body(body);
+    }
+
+    private static String toCsv(MemberDto member) {
+        return member.getId() + "," + csvField(member.getUsername()) + "," + csvField(member.getTeamName());
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,23 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.StringUtils;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberByIdLoader;
+
+// /members2/{id} 처럼 id 를 Member 로 바로 받을 때 DomainClassConverter 대신 MemberByIdLoader 를 거친다.
+// String -> Member 로 정확히 등록되어 있어서 Object -> Object 로 등록된 DomainClassConverter 보다 먼저 선택된다.
+@RequiredArgsConstructor
+public class MemberIdConverter implements Converter<String, Member> {
+
+    private final MemberByIdLoader memberByIdLoader;
+
+    @Override
+    public Member convert(String source) {
+        if (!StringUtils.hasText(source)) {
+            return null;
+        }
+        return memberByIdLoader.findById(Long.valueOf(source)).orElse(null);
+    }
+}
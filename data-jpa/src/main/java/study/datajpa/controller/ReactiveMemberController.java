@@ -0,0 +1,59 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.ReactiveMemberRepository;
+
+import java.util.List;
+
+// MemberController 와 같은 조회를 Mono / Flux 로 돌려준다. 요청 스레드는 조회를 기다리지 않고 바로 반납된다.
+// application/x-ndjson 으로 요청하면 한 건씩 흘려보낸다. 스프링 MVC 는 한 건을 쓸 때마다 다음 한 건을 요청한다. (backpressure)
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/reactive/members")
+public class ReactiveMemberController {
+
+    private final ReactiveMemberRepository reactiveMemberRepository;
+
+    @GetMapping("/{id}")
+    public Mono<MemberDto> findMember(@PathVariable("id") Long id) {
+        return reactiveMemberRepository.findById(id);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<MemberDto> findByUsername(@RequestParam("username") String username) {
+        return reactiveMemberRepository.findByUsername(username);
+    }
+
+    @GetMapping(value = "/names", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<MemberDto> findByNames(@RequestParam("names") List<String> names) {
+        return reactiveMemberRepository.findByNames(names);
+    }
+
+    @GetMapping(value = "/dto", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<MemberDto> findMemberDto() {
+        return reactiveMemberRepository.findMemberDto();
+    }
+
+    @GetMapping("/page")
+    public Mono<Page<MemberDto>> list(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
+        return reactiveMemberRepository.findAll(pageable);
+    }
+
+    // 전체 회원을 키셋 페이지로 나눠서 흘려보낸다. 클라이언트가 읽는 만큼만 다음 페이지를 조회한다.
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberDto> stream(@RequestParam(value = "pageSize", defaultValue = "500") int pageSize) {
+        return reactiveMemberRepository.streamAll(pageSize);
+    }
+}
@@ -0,0 +1,28 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+@Slf4j
+public final class HikariPools {
+
+    public static final int DEFAULT_MAXIMUM_POOL_SIZE = 10; // HikariCP 기본값
+
+    private HikariPools() {
+    }
+
+    // p6spy / LazyConnectionDataSourceProxy / 라우팅 DataSource 로 감싸져 있어도 unwrap 으로 (primary) HikariCP 를 찾는다.
+    public static int maximumPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("HikariCP 풀 크기를 확인하지 못했습니다. 기본값 {} 을 사용합니다.", DEFAULT_MAXIMUM_POOL_SIZE, e);
+        }
+        return DEFAULT_MAXIMUM_POOL_SIZE;
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// @Transactional(readOnly = true) 트랜잭션은 복제본으로, 나머지는 primary 로 보낸다.
+// 복제본이 여러 개면 라운드 로빈. 지연된 복제본은 ReplicaLagMonitor 가 빼주고, 전부 빠지면 primary 로 읽는다.
+//
+// 주의 : 트랜잭션 매니저는 readOnly 여부를 표시하기 전에 커넥션부터 가져온다.
+// LazyConnectionDataSourceProxy 로 감싸서 실제 커넥션을 첫 쿼리 시점에 가져와야 라우팅이 동작한다.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas;
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicas,
+                                      String lagQuery, Duration maxLag, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.lagMonitor = new ReplicaLagMonitor(new LinkedHashMap<>(replicas), lagQuery, maxLag, healthCheckInterval);
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+
+        List<String> healthy = lagMonitor.getHealthyReplicas();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    @Override
+    public void close() {
+        lagMonitor.close();
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
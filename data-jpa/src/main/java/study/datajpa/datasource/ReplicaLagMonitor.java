@@ -0,0 +1,88 @@
+package study.datajpa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 복제본마다 주기적으로 지연(lag)을 확인해서 읽어도 되는 복제본 목록을 유지한다.
+// 연결이 안 되거나 지연이 maxLag 보다 크면 목록에서 빠지고, 다시 따라잡으면 돌아온다.
+@Slf4j
+public class ReplicaLagMonitor implements Closeable {
+
+    private final Map<String, DataSource> replicas;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile List<String> healthyReplicas;
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, String lagQuery, Duration maxLag, Duration interval) {
+        this.replicas = replicas;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.healthyReplicas = List.copyOf(replicas.keySet());
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::check, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    void check() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            if (isHealthy(replica.getKey(), replica.getValue())) {
+                healthy.add(replica.getKey());
+            }
+        }
+
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("읽기 대상 복제본 변경 : {} -> {}", healthyReplicas, healthy);
+        }
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    private boolean isHealthy(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (lagQuery == null) {
+                return connection.isValid(1);
+            }
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                double lagSeconds = rs.next() ? rs.getDouble(1) : Double.MAX_VALUE;
+                if (lagSeconds > maxLagSeconds) {
+                    log.warn("복제 지연 초과 : replica = {}, lag = {}s, maxLag = {}s", name, lagSeconds, maxLagSeconds);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            log.warn("복제본 확인 실패 : replica = {}, {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// count 쿼리 없이 "다음 페이지가 있는지" 와 다음 커서만 알려주는 응답
+@Getter
+public class CursorSlice<T> {
+
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public CursorSlice(List<T> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,51 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// 키셋 페이징의 커서. 마지막으로 읽은 (username, id) 를 담는다.
+// 클라이언트에게는 내부 구조를 숨기기 위해 Base64 문자열로만 노출한다. id 도 10 진수 문자열로 들어가서 JSON 숫자 정밀도와 상관없다.
+@Getter
+public class MemberCursor {
+
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUsername(), member.getId());
+    }
+
+    // id 를 앞에 둔다. username 에 구분자가 들어 있어도 첫번째 구분자로 나눌 수 있다.
+    // username 이 null 이면 구분자 없이 id 만 쓴다. ("id:null" 로 쓰면 문자열 "null" 과 구분할 수 없다.)
+    public String encode() {
+        String raw = username == null ? String.valueOf(id) : id + ":" + username;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다. cursor = " + cursor, e);
+        }
+
+        int separator = raw.indexOf(':');
+        try {
+            if (separator < 0) {
+                return new MemberCursor(null, Long.valueOf(raw));
+            }
+            return new MemberCursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다. cursor = " + cursor, e);
+        }
+    }
+}
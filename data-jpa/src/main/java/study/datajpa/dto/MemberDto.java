@@ -1,11 +1,16 @@
 package study.datajpa.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
 import study.datajpa.entity.Member;
 
 @Data
 public class MemberDto {
 
+    // id 는 TimeSortedIds 64 비트 값이라 2^53 을 넘는다. JSON 숫자로 내보내면 자바스크립트에서 뒷자리가 깨진다. -> 문자열로 내보낸다.
+    // /members, /members/keyset, /reactive/members, /members/export (ndjson) 가 모두 이 DTO 를 쓴다.
+    @JsonSerialize(using = ToStringSerializer.class)
     private Long id;
     private String username;
     private String teamName;
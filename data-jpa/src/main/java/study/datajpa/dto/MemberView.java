@@ -0,0 +1,25 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.datajpa.entity.Member;
+
+// 캐시에 넣는 회원 스냅샷. 엔티티와 달리 불변이고 영속성 컨텍스트와 상관없다.
+@Getter
+@ToString
+public class MemberView {
+
+    private final Long id;
+    private final String username;
+    private final int age;
+
+    public MemberView(Long id, String username, int age) {
+        this.id = id;
+        this.username = username;
+        this.age = age;
+    }
+
+    public static MemberView of(Member member) {
+        return new MemberView(member.getId(), member.getUsername(), member.getAge());
+    }
+}
@@ -3,14 +3,15 @@ package study.datajpa.entity;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import study.datajpa.audit.AuditHistoryListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 
 @Getter
-@EntityListeners(AuditingEntityListener.class)
+// AuditingEntityListener 는 BaseTimeEntity 에서 상속된다. 여기서 다시 선언하지 않는다.
+@EntityListeners(AuditHistoryListener.class)
 @MappedSuperclass
 public class BaseEntity extends BaseTimeEntity {
 
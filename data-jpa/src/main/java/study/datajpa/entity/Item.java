@@ -3,6 +3,7 @@ package study.datajpa.entity;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,13 +13,18 @@ import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 @EntityListeners(AuditingEntityListener.class)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity
 public class Item implements Persistable<String> {
 
+    // id 를 넣지 않으면 시간 순 13 자리 문자열 id 를 만든다. 랜덤 문자열 키와 달리 PK 인덱스 끝에만 추가된다.
+    // id 를 넣으면 (외부 시스템의 키) 그대로 쓴다. -> 새 Item 인지는 isNew() 로 판단한다. (PersistableInterceptor)
     @Id
+    @GeneratedValue(generator = "item_id_generator")
+    @GenericGenerator(name = "item_id_generator", strategy = "study.datajpa.id.TimeSortedIdentifierGenerator")
     private String id;
 
     @CreatedDate
@@ -28,6 +34,17 @@ public class Item implements Persistable<String> {
         this.id = id;
     }
 
+    public static Item withGeneratedId() {
+        return new Item();
+    }
+
+    // JPA 를 거치지 않는 저장 (ItemRepository.persistAll / upsertAll) 은 id 생성기를 타지 않는다. -> 여기서 직접 채운다.
+    public void assignIdIfAbsent(Supplier<String> idSupplier) {
+        if (id == null) {
+            id = idSupplier.get();
+        }
+    }
+
     @Override
     public String getId() {
         return id;
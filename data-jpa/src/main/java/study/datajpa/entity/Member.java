@@ -1,6 +1,9 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import study.datajpa.repository.MemberCountListener;
+import study.datajpa.repository.MemberUsernameCacheListener;
 
 import javax.persistence.*;
 
@@ -8,6 +11,15 @@ import javax.persistence.*;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 @Entity
+// username = / in / 키셋 (username, member_id) 정렬 -> (username, member_id)
+// age = 조건 + username 정렬 (findByAge, findByPage, /members 기본 정렬) / bulkAgePlus 의 age >= -> (age, username)
+// 팀 조인 -> team_id
+@Table(indexes = {
+        @Index(name = "idx_member_username_id", columnList = "username, member_id"),
+        @Index(name = "idx_member_age_username", columnList = "age, username"),
+        @Index(name = "idx_member_team_id", columnList = "team_id")
+})
+@EntityListeners({MemberCountListener.class, MemberUsernameCacheListener.class})
 @NamedQuery(
         name = "Member.findByUsername",
         query = "select m From Member m where m.username = :username"
@@ -18,12 +30,20 @@ import javax.persistence.*;
 )
 public class Member extends BaseEntity {
 
-    @Id @GeneratedValue
+    // 시간 순 64 비트 id 를 애플리케이션에서 만든다. -> 시퀀스 조회 없이 persist 시점에 id 가 정해지고, JDBC batch insert 도 그대로 된다.
+    // 나중에 만든 회원일수록 id 가 커서 PK 인덱스 끝에만 추가된다.
+    @Id
+    @GeneratedValue(generator = "member_id_generator")
+    @GenericGenerator(name = "member_id_generator", strategy = "study.datajpa.id.TimeSortedIdentifierGenerator")
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    // 낙관적 락 : 수정할 때 where version = ? 로 확인하고 +1 한다. 그 사이 다른 트랜잭션이 수정했다면 예외 -> 재시도
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
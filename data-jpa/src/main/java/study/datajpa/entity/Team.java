@@ -1,6 +1,12 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -10,14 +16,29 @@ import java.util.List;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name")) // MemberSpec.teamName 의 t.name = 조건
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 2차 캐시. Member.team 프록시 초기화도 캐시에서 가져온다.
+@BatchSize(size = 100) // Member.team 프록시를 초기화할 때 다른 팀 프록시도 100 개씩 같이 가져온다.
 public class Team extends JpaBaseEntity {
 
-    @Id @GeneratedValue
+    // Member 와 같은 시간 순 id (시퀀스 조회 없음)
+    @Id
+    @GeneratedValue(generator = "team_id_generator")
+    @GenericGenerator(name = "team_id_generator", strategy = "study.datajpa.id.TimeSortedIdentifierGenerator")
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    // 낙관적 락 : 수정할 때 where version = ? 로 확인하고 +1 한다. 그 사이 다른 트랜잭션이 수정했다면 예외 -> 재시도
+    @Version
+    private Long version;
+
+    // 팀 목록을 조회한 뒤 members 를 돌면 팀마다 쿼리가 나간다.
+    // SUBSELECT : 처음 팀을 조회한 쿼리를 서브쿼리로 사용해서 모든 팀의 members 를 쿼리 1번으로 가져온다.
+    // (SUBSELECT 가 @BatchSize 보다 우선하기 때문에 컬렉션에는 @BatchSize 를 따로 두지 않는다.)
     @OneToMany(mappedBy = "team")
+    @Fetch(FetchMode.SUBSELECT)
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
@@ -0,0 +1,18 @@
+package study.datajpa.id;
+
+import org.hibernate.EmptyInterceptor;
+import org.springframework.data.domain.Persistable;
+
+// 하이버네이트는 id 가 채워진 엔티티를 persist 하면 준영속으로 보고 예외를 던진다. (생성기를 쓰는 id)
+// Persistable 엔티티는 isNew() 로 새 엔티티인지 알려준다. -> 호출한 쪽이 id 를 정한 Item 도 persist 할 수 있다.
+// 결정하지 못하면 (null) 하이버네이트 기본 규칙을 따른다.
+public class PersistableInterceptor extends EmptyInterceptor {
+
+    @Override
+    public Boolean isTransient(Object entity) {
+        if (entity instanceof Persistable) {
+            return ((Persistable<?>) entity).isNew();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package study.datajpa.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+// TimeSortedIds 를 하이버네이트 id 생성기로 쓴다. 시퀀스 조회 없이 persist 할 때 바로 id 가 정해진다.
+// @GenericGenerator(name = "...", strategy = "study.datajpa.id.TimeSortedIdentifierGenerator")
+// - id 타입이 Long 이면 64 비트 숫자, String 이면 13 자리 base32
+// - 이미 id 가 들어 있으면 (호출한 쪽이 정한 id) 그대로 쓴다.
+// 노드 번호는 TimeSortedIds.forLocalNode() 규칙을 따른다. (엔티티마다 따로 정하지 않는다. -> 한 JVM 의 모든 엔티티가 같은 노드)
+public class TimeSortedIdentifierGenerator implements IdentifierGenerator, Configurable {
+
+    private TimeSortedIds ids;
+    private boolean base32;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Class<?> idType = type.getReturnedClass();
+        if (idType == String.class) {
+            base32 = true;
+        } else if (idType != Long.class && idType != long.class) {
+            throw new MappingException("TimeSortedIdentifierGenerator 는 Long / String id 만 지원합니다. type = " + idType);
+        }
+        ids = TimeSortedIds.forLocalNode();
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Serializable assigned = session.getEntityPersister(null, object).getIdentifier(object, session);
+        if (assigned != null) {
+            return assigned;
+        }
+        return base32 ? ids.nextBase32() : ids.nextId();
+    }
+}
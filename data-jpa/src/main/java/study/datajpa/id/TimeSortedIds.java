@@ -0,0 +1,100 @@
+package study.datajpa.id;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 시간 순으로 정렬되는 64 비트 id (snowflake 방식)
+//   [ 부호 1 | 밀리초 41 (EPOCH 부터, 약 69 년) | 노드 10 (0 ~ 1023) | 순번 12 (밀리초당 4096 개) ]
+// - DB 왕복 없이 메모리에서 만든다.
+// - 노드마다 같은 밀리초에도 겹치지 않는다. 노드 번호는 id.node (시스템 프로퍼티) -> ID_NODE (환경 변수) -> 호스트 이름 해시 순서로 정한다.
+// - 같은 노드 안에서는 항상 증가한다. 시계가 뒤로 가면 마지막 시간을 계속 쓰면서 순번만 올린다.
+// - 나중에 만든 id 가 크다. -> PK 인덱스 끝에만 추가되어 랜덤 키처럼 페이지가 쪼개지지 않는다.
+//
+// 문자열 id 는 크록포드 base32 13 자리 고정 길이로 쓴다. 고정 길이라서 문자열 정렬 = 숫자 정렬이다.
+// 참고 : 2^53 보다 커서 자바스크립트 number 로는 정확히 표현하지 못한다. 숫자 id 를 JSON 으로 내보낼 때는 문자열로 내보내야 한다.
+public final class TimeSortedIds {
+
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    public static final int BASE32_LENGTH = 13; // 13 * 5 = 65 비트
+
+    private static final Map<Integer, TimeSortedIds> BY_NODE = new ConcurrentHashMap<>();
+
+    private final int node;
+    private long lastTimestamp = -1; // this
+    private int sequence; // this
+
+    private TimeSortedIds(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("node 는 0 ~ " + MAX_NODE + " 이어야 합니다. node = " + node);
+        }
+        this.node = node;
+    }
+
+    // 같은 노드 번호는 같은 인스턴스를 쓴다. -> 엔티티가 달라도 한 JVM 안에서 id 가 겹치지 않는다.
+    public static TimeSortedIds forNode(int node) {
+        return BY_NODE.computeIfAbsent(node, TimeSortedIds::new);
+    }
+
+    public static TimeSortedIds forLocalNode() {
+        return forNode(localNode());
+    }
+
+    public synchronized long nextId() {
+        long timestamp = Math.max(System.currentTimeMillis() - EPOCH, lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            if (sequence == MAX_SEQUENCE) {
+                timestamp++; // 이번 밀리초를 다 썼다. 다음 밀리초 것을 미리 쓴다.
+                sequence = 0;
+            } else {
+                sequence++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | ((long) node << SEQUENCE_BITS) | sequence;
+    }
+
+    public String nextBase32() {
+        return toBase32(nextId());
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    public static String toBase32(long id) {
+        char[] chars = new char[BASE32_LENGTH];
+        for (int i = BASE32_LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+
+    static int localNode() {
+        String configured = System.getProperty("id.node", System.getenv("ID_NODE"));
+        if (configured != null && !configured.isBlank()) {
+            return Integer.parseInt(configured.trim());
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName().hashCode() & MAX_NODE;
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+    }
+}
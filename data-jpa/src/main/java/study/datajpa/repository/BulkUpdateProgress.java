@@ -0,0 +1,31 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+// 청크 단위 벌크 수정의 진행 상황. 마지막 청크까지 끝나면 그대로 최종 결과가 된다.
+@Getter
+@ToString
+public class BulkUpdateProgress {
+
+    private final long updatedRows;
+    private final int chunks;
+    private final long lastId; // 여기까지 처리했다.
+    private final long maxId;
+    private final Duration elapsed;
+
+    public BulkUpdateProgress(long updatedRows, int chunks, long lastId, long maxId, Duration elapsed) {
+        this.updatedRows = updatedRows;
+        this.chunks = chunks;
+        this.lastId = lastId;
+        this.maxId = maxId;
+        this.elapsed = elapsed;
+    }
+
+    public double getRowsPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? updatedRows : updatedRows * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,85 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// 인터페이스 프로젝션 하나를 컬럼 단위 조회로 바꾼 결과 (OpenProjectionCompiler 가 만든다.)
+// - properties : 프로젝션이 실제로 읽는 엔티티 속성. 이 컬럼만 select 한다.
+// - getter 마다 조회 결과 행 (Object[]) 에서 값을 만드는 함수를 미리 만들어 둔다.
+// prunable 이 false 면 (reason 참고) 컬럼만으로 만들 수 없다. -> 엔티티 전체를 조회해서 스프링 데이터 프로젝션으로 만든다.
+@Getter
+public class CompiledProjection<T> {
+
+    private final Class<T> type;
+    private final List<String> properties;
+    private final boolean prunable;
+    private final String reason;
+    private final Map<Method, Function<Object[], Object>> getters;
+
+    private CompiledProjection(Class<T> type, List<String> properties, String reason,
+                               Map<Method, Function<Object[], Object>> getters) {
+        this.type = type;
+        this.properties = properties;
+        this.prunable = reason == null;
+        this.reason = reason;
+        this.getters = getters;
+    }
+
+    static <T> CompiledProjection<T> prunable(Class<T> type, List<String> properties,
+                                              Map<Method, Function<Object[], Object>> getters) {
+        return new CompiledProjection<>(type, List.copyOf(properties), null, Map.copyOf(getters));
+    }
+
+    static <T> CompiledProjection<T> requiresEntity(Class<T> type, String reason) {
+        return new CompiledProjection<>(type, List.of(), reason, Map.of());
+    }
+
+    // select m.age, m.username from Member m
+    public String select(String entityName, String alias) {
+        StringBuilder select = new StringBuilder("select ");
+        for (int i = 0; i < properties.size(); i++) {
+            select.append(i == 0 ? "" : ", ").append(alias).append('.').append(properties.get(i));
+        }
+        return select.append(" from ").append(entityName).append(' ').append(alias).toString();
+    }
+
+    // 행 하나를 프로젝션 프록시로 만든다. getter 값은 여기서 한 번만 계산한다.
+    public T create(Object[] row) {
+        Map<Method, Object> values = new LinkedHashMap<>(getters.size() * 2);
+        getters.forEach((method, getter) -> values.put(method, getter.apply(row)));
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new Values(type, values)));
+    }
+
+    private static class Values implements InvocationHandler {
+        private final Class<?> type;
+        private final Map<Method, Object> values;
+
+        private Values(Class<?> type, Map<Method, Object> values) {
+            this.type = type;
+            this.values = values;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (values.containsKey(method)) {
+                return values.get(method);
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            switch (method.getName()) {
+                case "equals": return proxy == args[0];
+                case "hashCode": return System.identityHashCode(proxy);
+                case "toString": return type.getSimpleName() + values.values();
+                default: throw new UnsupportedOperationException(method.toString());
+            }
+        }
+    }
+}
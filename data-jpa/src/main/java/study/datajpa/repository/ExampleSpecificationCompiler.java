@@ -0,0 +1,189 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Example (probe + matcher) 를 ShapedSpecification 으로 바꾼다.
+// 스프링 데이터 QBE 는 조회할 때마다 probe 를 리플렉션으로 훑고, probe 에 연관 엔티티가 있으면 값이 없어도 조인한다.
+// - 클래스별 속성 목록과 getter (MethodHandle) 는 메타모델에서 한 번만 만들고 캐시한다.
+// - null 과 기본형 기본값 (0, false) 은 조건에서 뺀다. (스프링 QBE 는 기본형을 항상 조건에 넣는다. -> withIgnorePaths("age") 가 필요했다.)
+// - 연관 엔티티는 그 안에 조건이 하나라도 있을 때만 조인한다.
+// 모양이 같은 probe 는 같은 JPQL 이 되어 MemberSpecQueryCache / 하이버네이트 query plan cache 를 그대로 탄다.
+//
+// 속성별 matcher (withMatcher), NullHandler.INCLUDE, REGEX 는 지원하지 않는다. -> 스프링 QBE 조건으로 그대로 만든다.
+@Component
+public class ExampleSpecificationCompiler {
+
+    private final Metamodel metamodel;
+    private final Map<Class<?>, List<Property>> properties = new ConcurrentHashMap<>();
+
+    public ExampleSpecificationCompiler(EntityManagerFactory emf) {
+        this.metamodel = emf.getMetamodel();
+    }
+
+    public <T> Specification<T> compile(Example<T> example) {
+        ExampleMatcher matcher = example.getMatcher();
+        if (!isSupported(matcher)) {
+            return (root, query, builder) ->
+                    QueryByExamplePredicateBuilder.getPredicate(root, builder, example, EscapeCharacter.DEFAULT);
+        }
+
+        ShapedSpecification<T> spec = ShapedSpecification.empty();
+        for (ShapedSpecification<T> term : terms(example.getProbe(), example.getProbeType(), "", "m", matcher)) {
+            spec = spec.and(term);
+        }
+        return spec;
+    }
+
+    private static boolean isSupported(ExampleMatcher matcher) {
+        return !matcher.getPropertySpecifiers().hasValues()
+                && matcher.getNullHandler() == ExampleMatcher.NullHandler.IGNORE
+                && matcher.getDefaultStringMatcher() != ExampleMatcher.StringMatcher.REGEX
+                && matcher.isAllMatching();
+    }
+
+    private <T> List<ShapedSpecification<T>> terms(Object probe, Class<?> type, String prefix, String alias,
+                                                   ExampleMatcher matcher) {
+        List<ShapedSpecification<T>> terms = new ArrayList<>();
+        for (Property property : propertiesOf(type)) {
+            String path = prefix + property.name;
+            if (matcher.isIgnoredPath(path)) {
+                continue;
+            }
+
+            Object value = property.get(probe);
+            if (property.isDefault(value)) {
+                continue;
+            }
+
+            if (property.association) {
+                // 연관 엔티티 안의 조건만 모은다. 조건이 없으면 조인도 하지 않는다.
+                String joinAlias = alias + "_" + property.name;
+                for (ShapedSpecification<T> nested : this.<T>terms(value, property.type, path + ".", joinAlias, matcher)) {
+                    terms.add(nested.withJoin("join " + alias + "." + property.name + " " + joinAlias));
+                }
+            } else {
+                terms.add(term(path, alias + "." + property.name, value, matcher));
+            }
+        }
+        return terms;
+    }
+
+    private static <T> ShapedSpecification<T> term(String path, String jpqlPath, Object value, ExampleMatcher matcher) {
+        if (!(value instanceof String)) {
+            return ShapedSpecification.of(path + " =", null, jpqlPath + " = ?", value,
+                    (root, query, builder) -> builder.equal(path(root, path), value));
+        }
+
+        boolean ignoreCase = matcher.isIgnoreCaseEnabled();
+        String text = ignoreCase ? ((String) value).toLowerCase() : (String) value;
+        String column = ignoreCase ? "lower(" + jpqlPath + ")" : jpqlPath;
+        String pattern;
+        switch (matcher.getDefaultStringMatcher()) {
+            case STARTING: pattern = EscapeCharacter.DEFAULT.escape(text) + "%"; break;
+            case ENDING: pattern = "%" + EscapeCharacter.DEFAULT.escape(text); break;
+            case CONTAINING: pattern = "%" + EscapeCharacter.DEFAULT.escape(text) + "%"; break;
+            default: pattern = null; // DEFAULT, EXACT
+        }
+
+        if (pattern == null) {
+            return ShapedSpecification.of(path + (ignoreCase ? " =i" : " ="), null, column + " = ?", text,
+                    (root, query, builder) -> builder.equal(ignoreCase ? builder.lower(path(root, path)) : path(root, path), text));
+        }
+        return ShapedSpecification.of(path + (ignoreCase ? " like i" : " like"), null, column + " like ? escape '\\'", pattern,
+                (root, query, builder) -> builder.like(ignoreCase ? builder.lower(path(root, path)) : path(root, path),
+                        pattern, '\\'));
+    }
+
+    // team.name -> root 에 이미 있는 team 조인을 재사용하고, 없으면 내부 조인한다.
+    private static <Y> Path<Y> path(From<?, ?> root, String path) {
+        String[] names = path.split("\\.");
+        From<?, ?> from = root;
+        for (int i = 0; i < names.length - 1; i++) {
+            String name = names[i];
+            From<?, ?> parent = from;
+            from = parent.getJoins().stream()
+                    .filter(join -> join.getAttribute().getName().equals(name))
+                    .findFirst()
+                    .<From<?, ?>>map(join -> join)
+                    .orElseGet(() -> parent.join(name, JoinType.INNER));
+        }
+        return from.<Y>get(names[names.length - 1]);
+    }
+
+    private List<Property> propertiesOf(Class<?> type) {
+        return properties.computeIfAbsent(type, this::createProperties);
+    }
+
+    private List<Property> createProperties(Class<?> type) {
+        ManagedType<?> managedType = metamodel.managedType(type);
+        List<Property> result = new ArrayList<>();
+        for (Attribute<?, ?> attribute : managedType.getAttributes()) {
+            if (!(attribute instanceof SingularAttribute) || !(attribute.getJavaMember() instanceof Field)) {
+                continue; // 컬렉션은 QBE 조건이 아니다.
+            }
+            SingularAttribute<?, ?> singular = (SingularAttribute<?, ?>) attribute;
+            if (singular.isVersion() || attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED) {
+                continue;
+            }
+            result.add(new Property((Field) attribute.getJavaMember(), attribute.isAssociation()));
+        }
+        return List.copyOf(result);
+    }
+
+    private static class Property {
+        private final String name;
+        private final Class<?> type;
+        private final boolean association;
+        private final MethodHandle getter;
+        private final Object defaultValue; // 기본형이면 0 / false, 아니면 null
+
+        private Property(Field field, boolean association) {
+            this.name = field.getName();
+            this.type = field.getType();
+            this.association = association;
+            try {
+                this.getter = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup())
+                        .unreflectGetter(field);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("probe 속성을 읽을 수 없습니다. " + field, e);
+            }
+            this.defaultValue = type.isPrimitive()
+                    ? Array.get(Array.newInstance(type, 1), 0)
+                    : null;
+        }
+
+        private Object get(Object target) {
+            try {
+                return getter.invoke(target);
+            } catch (Throwable e) {
+                throw new IllegalStateException("probe 속성을 읽을 수 없습니다. " + name, e);
+            }
+        }
+
+        private boolean isDefault(Object value) {
+            return value == null || value.equals(defaultValue);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+public interface ItemRepositoryCustom {
+
+    int persistAll(Iterable<Item> items);
+
+    int upsertAll(Iterable<Item> items);
+}
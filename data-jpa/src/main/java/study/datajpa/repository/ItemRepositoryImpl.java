@@ -0,0 +1,96 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.audit.TransactionDateTimeProvider;
+import study.datajpa.entity.Item;
+import study.datajpa.id.TimeSortedIds;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.IntFunction;
+
+// Item 은 id 를 직접 넣는다. save() 는 isNew() 가 false 인 Item (createdDate 가 채워진 / 다시 만든 Item) 을 em.merge() 로 보내고,
+// merge 는 insert 전에 select 를 한 번 더 한다. (row 하나에 왕복 2번)
+// 대량 수집은 JPA 를 거치지 않고 여러 row 를 한 문장에 담아서 batchSize 건마다 왕복 1번으로 넣는다.
+// - persistAll : insert 만 한다. 이미 있는 id 가 있으면 그 배치가 실패한다.
+// - upsertAll : 없는 id 만 넣는다. (H2 MERGE ... WHEN NOT MATCHED) 같은 메시지가 다시 와도 결과가 같다.
+// 엔티티를 영속성 컨텍스트에 올리지 않는다. createdDate 는 auditing 과 같은 시간 (트랜잭션당 하나) 으로 채운다.
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionDateTimeProvider dateTimeProvider;
+    private final int batchSize;
+    private final TimeSortedIds ids = TimeSortedIds.forLocalNode(); // Item.withGeneratedId() 처럼 id 가 없는 Item
+    private final String insertBatchSql;
+    private final String upsertBatchSql;
+
+    public ItemRepositoryImpl(JdbcTemplate jdbcTemplate,
+                              TransactionDateTimeProvider dateTimeProvider,
+                              @Value("${item.ingest.batch-size:1000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다. batchSize = " + batchSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dateTimeProvider = dateTimeProvider;
+        this.batchSize = batchSize;
+        this.insertBatchSql = insertSql(batchSize);
+        this.upsertBatchSql = upsertSql(batchSize);
+    }
+
+    @Override
+    @Transactional
+    public int persistAll(Iterable<Item> items) {
+        return write(items, insertBatchSql, ItemRepositoryImpl::insertSql);
+    }
+
+    // 반환값 : 실제로 새로 들어간 row 수
+    @Override
+    @Transactional
+    public int upsertAll(Iterable<Item> items) {
+        return write(items, upsertBatchSql, ItemRepositoryImpl::upsertSql);
+    }
+
+    private int write(Iterable<Item> items, String fullBatchSql, IntFunction<String> partialBatchSql) {
+        Timestamp createdDate = Timestamp.valueOf(dateTimeProvider.now());
+
+        int written = 0;
+        List<Object> args = new ArrayList<>(batchSize * 2);
+        int rows = 0;
+        for (Item item : items) {
+            item.assignIdIfAbsent(ids::nextBase32);
+            args.add(item.getId());
+            args.add(createdDate);
+            if (++rows == batchSize) {
+                written += jdbcTemplate.update(fullBatchSql, args.toArray());
+                args.clear();
+                rows = 0;
+            }
+        }
+        if (rows > 0) {
+            written += jdbcTemplate.update(partialBatchSql.apply(rows), args.toArray());
+        }
+        return written;
+    }
+
+    private static String insertSql(int rows) {
+        return "insert into item (id, created_date) values " + values(rows, "(?, ?)");
+    }
+
+    private static String upsertSql(int rows) {
+        return "merge into item t using (values " + values(rows, "(cast(? as varchar), cast(? as timestamp))") + ") " +
+                "s(id, created_date) on t.id = s.id " +
+                "when not matched then insert (id, created_date) values (s.id, s.created_date)";
+    }
+
+    private static String values(int rows, String row) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < rows; i++) {
+            values.add(row);
+        }
+        return values.toString();
+    }
+}
@@ -0,0 +1,182 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.datasource.HikariPools;
+import study.datajpa.entity.Member;
+import study.datajpa.support.LongKeyedMap;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// id / username 대량 조회
+// findAllById / findByNames 에 큰 컬렉션을 넘기면 키를 모두 박싱하고, in (...) 목록 길이마다 다른 SQL 이 되어
+// 쿼리 계획 캐시를 채우고 문장도 끝없이 길어진다.
+// - 키는 long[] / String[] 로 받는다. 정렬해서 중복을 빼고 maxBucketSize 개씩 나눈다.
+// - 마지막 버킷은 1, 2, 4, 8 ... 로 올려서 마지막 키를 반복해 채운다. -> in 목록 길이가 log2(maxBucketSize) + 1 가지뿐이다.
+// - 버킷이 여러 개면 parallelism 개 스레드에서 버킷마다 읽기 전용 트랜잭션으로 동시에 조회한다.
+// - id 결과는 LongKeyedMap (long 키) 으로 모은다. 박싱은 JDBC 바인딩 할 때뿐이다.
+//
+// 버킷이 하나면 호출한 스레드에서 (호출한 쪽 트랜잭션에 참여해서) 조회한다.
+// 버킷이 여러 개면 다른 스레드에서 조회하기 때문에 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 회원은 보이지 않는다.
+// 돌려주는 회원은 준영속 엔티티다. 지연 로딩 (team) 은 할 수 없다.
+@Slf4j
+@Component
+public class MemberBulkLookup {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int maxBucketSize;
+    private final MeterRegistry meterRegistry;
+
+    public MemberBulkLookup(PlatformTransactionManager transactionManager,
+                            DataSource dataSource,
+                            MeterRegistry meterRegistry,
+                            @Value("${member.bulk-lookup.max-bucket-size:512}") int maxBucketSize,
+                            @Value("${member.bulk-lookup.parallelism:4}") int parallelism) {
+        if (maxBucketSize < 1 || Integer.bitCount(maxBucketSize) != 1) {
+            throw new IllegalArgumentException("maxBucketSize 는 2 의 거듭제곱이어야 합니다. maxBucketSize = " + maxBucketSize);
+        }
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxBucketSize = maxBucketSize;
+        this.meterRegistry = meterRegistry;
+
+        // 버킷마다 커넥션을 하나씩 잡는다. -> 커넥션 풀보다 많이 띄우지 않는다.
+        int threads = Math.max(1, Math.min(parallelism, HikariPools.maximumPoolSize(dataSource)));
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "member-bulk-lookup-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("대량 조회 : maxBucketSize = {}, threads = {}", maxBucketSize, threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public LongKeyedMap<Member> findAllById(long[] ids) {
+        long[] keys = distinct(ids);
+        List<List<Long>> buckets = new ArrayList<>();
+        for (int from = 0; from < keys.length; from += maxBucketSize) {
+            int length = Math.min(maxBucketSize, keys.length - from);
+            List<Long> bucket = new ArrayList<>(paddedSize(length));
+            for (int i = from; i < from + length; i++) {
+                bucket.add(keys[i]);
+            }
+            pad(bucket);
+            buckets.add(bucket);
+        }
+
+        LongKeyedMap<Member> result = new LongKeyedMap<>(keys.length);
+        for (List<Member> members : query(buckets, "select m from Member m where m.id in :keys")) {
+            for (Member member : members) {
+                result.put(member.getId(), member);
+            }
+        }
+        return result;
+    }
+
+    // username 은 중복될 수 있다. -> username 마다 회원 목록
+    public Map<String, List<Member>> findAllByUsername(String[] usernames) {
+        String[] keys = distinct(usernames);
+        List<List<String>> buckets = new ArrayList<>();
+        for (int from = 0; from < keys.length; from += maxBucketSize) {
+            List<String> bucket = new ArrayList<>(Arrays.asList(keys).subList(from, Math.min(keys.length, from + maxBucketSize)));
+            pad(bucket);
+            buckets.add(bucket);
+        }
+
+        Map<String, List<Member>> result = new HashMap<>(keys.length * 2);
+        for (List<Member> members : query(buckets, "select m from Member m where m.username in :keys")) {
+            for (Member member : members) {
+                result.computeIfAbsent(member.getUsername(), username -> new ArrayList<>()).add(member);
+            }
+        }
+        return result;
+    }
+
+    private <K> List<List<Member>> query(List<List<K>> buckets, String jpql) {
+        Function<List<K>, List<Member>> read = bucket -> readOnlyTransaction.execute(status -> {
+            meterRegistry.counter("member.bulk-lookup.queries", "bucket", String.valueOf(bucket.size())).increment();
+            return em.createQuery(jpql, Member.class)
+                    .setParameter("keys", bucket)
+                    .getResultList();
+        });
+
+        if (buckets.size() <= 1) {
+            return buckets.isEmpty() ? List.of() : List.of(read.apply(buckets.get(0)));
+        }
+
+        List<CompletableFuture<List<Member>>> futures = new ArrayList<>(buckets.size());
+        for (List<K> bucket : buckets) {
+            futures.add(CompletableFuture.supplyAsync(() -> read.apply(bucket), executor));
+        }
+        List<List<Member>> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<List<Member>> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    static int paddedSize(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    // 마지막 키를 반복해서 2 의 거듭제곱 길이로 채운다. 같은 키는 in 결과에 한 번만 나온다.
+    private static <K> void pad(List<K> bucket) {
+        K last = bucket.get(bucket.size() - 1);
+        int padded = paddedSize(bucket.size());
+        for (int i = bucket.size(); i < padded; i++) {
+            bucket.add(last);
+        }
+    }
+
+    private static long[] distinct(long[] ids) {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    private static String[] distinct(String[] usernames) {
+        return Arrays.stream(usernames).filter(Objects::nonNull).distinct().sorted().toArray(String[]::new);
+    }
+}
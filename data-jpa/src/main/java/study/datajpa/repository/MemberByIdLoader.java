@@ -0,0 +1,234 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.datasource.HikariPools;
+import study.datajpa.entity.Member;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// findById 앞에 두는 single-flight + batch 로더
+// - 같은 id 를 동시에 조회하면 먼저 온 요청의 조회 결과를 같이 기다린다. (coalesced)
+// - 서로 다른 id 도 window 동안 모아서 where id in (...) 한 번으로 조회한다. maxBatchSize 가 차면 바로 조회한다.
+// 캐시가 아니다. 조회가 끝나면 바로 잊어버리기 때문에 그 뒤에 온 요청은 다시 DB 로 간다.
+//
+// window 를 재는 스케줄러는 스레드 하나지만, 조회는 커넥션 풀 크기만큼의 스레드에서 동시에 실행한다.
+// -> 느린 배치 하나가 다른 배치를 막지 않는다.
+// 조회는 요청 스레드가 아닌 곳에서 실행되기 때문에 요청의 SqlScope (@SqlBudget) 에 잡히지 않는다.
+//
+// findById 는 timeout 까지만 기다린다. 조회가 실패하면 (Error 포함) 같은 배치를 기다리던 요청 모두에게 그 예외를 돌려주고,
+// 종료 중이라 실행되지 못한 배치도 실패로 끝낸다. -> 요청 스레드가 끝없이 매달리지 않는다.
+//
+// 돌려주는 회원은 로더 트랜잭션이 끝난 준영속 엔티티이고, 같은 id 를 기다린 요청끼리 같은 인스턴스를 공유한다.
+// -> 읽기 전용으로만 쓴다. 지연 로딩 (team) 은 할 수 없다.
+@Slf4j
+@Component
+public class MemberByIdLoader {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ScheduledExecutorService executor; // window 스케줄링 전용
+    private final ExecutorService queryExecutor;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutNanos;
+
+    private final Object lock = new Object();
+    private final Map<Long, CompletableFuture<Member>> inFlight = new HashMap<>(); // lock
+    private List<Long> pending = new ArrayList<>(); // lock
+    private boolean flushScheduled; // lock
+
+    private final Counter leaderRequests;
+    private final Counter coalescedRequests;
+    private final Counter queries;
+    private final DistributionSummary batchSize;
+
+    public MemberByIdLoader(MemberRepository memberRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            DataSource dataSource,
+                            @Value("${member.loader.window:2ms}") Duration window,
+                            @Value("${member.loader.max-batch-size:100}") int maxBatchSize,
+                            @Value("${member.loader.timeout:5s}") Duration timeout) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int threads = HikariPools.maximumPoolSize(dataSource);
+        AtomicInteger sequence = new AtomicInteger();
+        this.queryExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "member-loader-query-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutNanos = timeout.toNanos();
+
+        // coalesce 비율 = coalesced / (leader + coalesced)
+        this.leaderRequests = Counter.builder("member.loader.requests").tag("result", "leader").register(meterRegistry);
+        this.coalescedRequests = Counter.builder("member.loader.requests").tag("result", "coalesced").register(meterRegistry);
+        this.queries = Counter.builder("member.loader.queries").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("member.loader.batch.size").register(meterRegistry);
+    }
+
+    public Optional<Member> findById(Long id) {
+        try {
+            return Optional.ofNullable(load(id).get(timeoutNanos, TimeUnit.NANOSECONDS));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("회원 조회가 실패했습니다. id = " + id, e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("회원 조회가 " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms 안에 끝나지 않았습니다. id = " + id, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 조회가 중단되었습니다. id = " + id, e);
+        }
+    }
+
+    public CompletableFuture<Member> load(Long id) {
+        List<Long> batch = null;
+        CompletableFuture<Member> future;
+        synchronized (lock) {
+            future = inFlight.get(id);
+            if (future != null) {
+                coalescedRequests.increment();
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            inFlight.put(id, future);
+            pending.add(id);
+            leaderRequests.increment();
+
+            if (pending.size() >= maxBatchSize) {
+                batch = takePending();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                try {
+                    executor.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) { // 종료 중
+                    flushScheduled = false;
+                    batch = takePending();
+                }
+            }
+        }
+
+        if (batch != null) {
+            submit(batch);
+        }
+        return future;
+    }
+
+    private void flush() {
+        List<Long> batch;
+        synchronized (lock) {
+            flushScheduled = false;
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            submit(batch);
+        }
+    }
+
+    private void submit(List<Long> ids) {
+        try {
+            queryExecutor.execute(() -> query(ids));
+        } catch (RejectedExecutionException e) {
+            complete(ids, Map.of(), new IllegalStateException("회원 로더가 종료되었습니다.", e));
+        }
+    }
+
+    private List<Long> takePending() {
+        List<Long> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void query(List<Long> ids) {
+        queries.increment();
+        batchSize.record(ids.size());
+
+        Map<Long, Member> found = new HashMap<>();
+        Throwable failure = null;
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    memberRepository.findAllById(ids).forEach(member -> found.put(member.getId(), member)));
+        } catch (Throwable e) { // Error 여도 기다리는 요청은 끝내야 한다.
+            log.warn("회원 일괄 조회 실패 : ids = {}", ids, e);
+            failure = e;
+        }
+
+        complete(ids, found, failure);
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    private void complete(List<Long> ids, Map<Long, Member> found, Throwable failure) {
+        List<CompletableFuture<Member>> futures = new ArrayList<>(ids.size());
+        synchronized (lock) {
+            for (Long id : ids) {
+                futures.add(inFlight.remove(id));
+            }
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            if (futures.get(i) == null) {
+                continue; // close 가 이미 실패로 끝냈다.
+            }
+            if (failure != null) {
+                futures.get(i).completeExceptionally(failure);
+            } else {
+                futures.get(i).complete(found.get(ids.get(i))); // 없는 id 는 null
+            }
+        }
+    }
+
+    // 아직 실행되지 않은 배치 (window 대기 중 / 큐에 있던 조회) 를 기다리는 요청도 실패로 끝낸다.
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+        queryExecutor.shutdownNow();
+
+        List<CompletableFuture<Member>> waiting;
+        synchronized (lock) {
+            waiting = new ArrayList<>(inFlight.values());
+            inFlight.clear();
+            pending.clear();
+        }
+        IllegalStateException closed = new IllegalStateException("회원 로더가 종료되었습니다.");
+        waiting.forEach(future -> future.completeExceptionally(closed));
+    }
+}
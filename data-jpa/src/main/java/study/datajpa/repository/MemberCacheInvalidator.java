@@ -0,0 +1,45 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// MemberRepository 의 save / delete / bulkAgePlus 가 끝나면 count 캐시를 비운다.
+// bulkAgePlus 는 엔티티 이벤트가 없기 때문에 username 캐시도 여기서 비운다.
+// 트랜잭션 안이라면 트랜잭션이 끝난 직후 (커밋 / 롤백 모두) 한번 더 비운다.
+// -> 끝나기 전에 다른 요청이 예전 값을 다시 캐시할 수 있고, 롤백되면 이 트랜잭션 안에서 캐시된 값이 틀린 값이 된다.
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MemberCacheInvalidator {
+
+    private final MemberCountCache memberCountCache;
+    private final MemberUsernameCache memberUsernameCache;
+
+    @AfterReturning("target(study.datajpa.repository.MemberRepository) && " +
+            "(execution(* save*(..)) || execution(* delete*(..)) || execution(* bulkAgePlus(..)))")
+    public void invalidate() {
+        memberCountCache.invalidate();
+        afterCompletion(memberCountCache::invalidate);
+    }
+
+    @AfterReturning("target(study.datajpa.repository.MemberRepository) && execution(* bulkAgePlus(..))")
+    public void invalidateUsernames() {
+        memberUsernameCache.invalidateAll();
+        afterCompletion(memberUsernameCache::invalidateAll);
+    }
+
+    private static void afterCompletion(Runnable invalidate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate.run();
+                }
+            });
+        }
+    }
+}
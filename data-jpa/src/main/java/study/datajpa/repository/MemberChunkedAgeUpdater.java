@@ -0,0 +1,168 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+// bulkAgePlus 를 id 순서로 chunkSize 개씩 나눠서 청크마다 짧은 트랜잭션으로 실행한다.
+// id 는 시간 순 id (TimeSortedIds) 라서 값 사이가 비어 있다. -> 고정 폭 id 범위가 아니라 키셋 (id > 마지막 id) 으로 나눈다.
+// 한번에 전체를 update 하면 테이블 전체에 락을 오래 잡고, clearAutomatically 로 영속성 컨텍스트를 통째로 비운다.
+// 여기서는 청크마다 커밋해서 락을 짧게 잡고, 실제로 바뀐 회원만 1차 / 2차 캐시에서 내린다.
+//
+// 주의 : 호출한 쪽 영속성 컨텍스트에 있는 회원 중 바뀐 회원은 detach 된다. 그 회원에 대한 변경 사항은 반영되지 않는다.
+// 벌크 연산처럼 트랜잭션 처음에 실행하는 것이 좋다.
+@Slf4j
+@Component
+public class MemberChunkedAgeUpdater {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate chunkTransaction;
+    private final MemberCountCache memberCountCache;
+    private final MemberUsernameCache memberUsernameCache;
+    private final int defaultChunkSize;
+    private final Duration defaultThrottle;
+
+    public MemberChunkedAgeUpdater(EntityManagerFactory emf,
+                                   PlatformTransactionManager transactionManager,
+                                   MemberCountCache memberCountCache,
+                                   MemberUsernameCache memberUsernameCache,
+                                   @Value("${member.bulk-update.chunk-size:1000}") int defaultChunkSize,
+                                   @Value("${member.bulk-update.throttle:0ms}") Duration defaultThrottle) {
+        this.emf = emf;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.memberCountCache = memberCountCache;
+        this.memberUsernameCache = memberUsernameCache;
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultThrottle = defaultThrottle;
+    }
+
+    public BulkUpdateProgress bulkAgePlus(int age) {
+        return bulkAgePlus(age, defaultChunkSize, defaultThrottle, progress -> {
+        });
+    }
+
+    public BulkUpdateProgress bulkAgePlus(int age, int chunkSize, Duration throttle, Consumer<BulkUpdateProgress> progressListener) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다. chunkSize = " + chunkSize);
+        }
+
+        long start = System.nanoTime();
+        Object[] range = chunkTransaction.execute(status ->
+                em.createQuery("select min(m.id), max(m.id) from Member m where m.age >= :age", Object[].class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+
+        BulkUpdateProgress progress = new BulkUpdateProgress(0, 0, 0, 0, Duration.ZERO);
+        if (range == null || range[0] == null) {
+            return progress;
+        }
+
+        long maxId = (Long) range[1];
+        long lastId = (Long) range[0] - 1;
+        long updatedRows = 0;
+        int chunks = 0;
+
+        while (true) {
+            List<Long> updatedIds = updateChunk(age, lastId, maxId, chunkSize);
+            if (updatedIds.isEmpty()) {
+                break;
+            }
+            lastId = updatedIds.get(updatedIds.size() - 1);
+
+            evict(updatedIds);
+            updatedRows += updatedIds.size();
+            chunks++;
+
+            progress = new BulkUpdateProgress(updatedRows, chunks, lastId, maxId, Duration.ofNanos(System.nanoTime() - start));
+            progressListener.accept(progress);
+            log.debug("벌크 수정 진행 : {} / {}, updatedRows = {}, rows/sec = {}",
+                    lastId, maxId, updatedRows, (long) progress.getRowsPerSecond());
+
+            if (updatedIds.size() < chunkSize || lastId >= maxId) {
+                break;
+            }
+            if (!throttle.isZero()) {
+                sleep(throttle);
+            }
+        }
+
+        memberCountCache.invalidate(); // 나이가 바뀌었기 때문에 findByAge count 도 바뀐다.
+        memberUsernameCache.invalidateAll(); // 캐시된 MemberView 의 나이도 바뀌었다.
+        log.info("벌크 수정 완료 : updatedRows = {}, chunks = {}, elapsed = {}ms, rows/sec = {}",
+                updatedRows, chunks, progress.getElapsed().toMillis(), (long) progress.getRowsPerSecond());
+        return progress;
+    }
+
+    // 바뀔 회원 id 를 먼저 읽고, 그 id 만 update 한다. -> 어떤 회원을 캐시에서 내려야 하는지 알 수 있다.
+    // 마지막으로 처리한 id 다음부터 chunkSize 개를 id 순서로 읽는다. (PK 인덱스 범위 스캔)
+    // 나이를 올려도 age >= 조건은 그대로 참이지만, 키셋이 앞으로만 가기 때문에 같은 회원을 두 번 올리지 않는다.
+    // 시작할 때 읽은 maxId 까지만 처리한다. -> 도중에 새로 들어온 회원 (더 큰 id) 은 건드리지 않고, 끝이 정해져 있다.
+    private List<Long> updateChunk(int age, long afterId, long maxId, int chunkSize) {
+        return chunkTransaction.execute(status -> {
+            List<Long> ids = em.createQuery("select m.id from Member m " +
+                            "where m.id > :afterId and m.id <= :maxId and m.age >= :age order by m.id", Long.class)
+                    .setParameter("afterId", afterId)
+                    .setParameter("maxId", maxId)
+                    .setParameter("age", age)
+                    .setMaxResults(chunkSize)
+                    .getResultList();
+            if (ids.isEmpty()) {
+                return ids;
+            }
+
+            em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 " +
+                            "where m.id in :ids and m.age >= :age")
+                    .setParameter("ids", ids)
+                    .setParameter("age", age)
+                    .executeUpdate();
+            return ids;
+        });
+    }
+
+    private void evict(List<Long> ids) {
+        ids.forEach(id -> emf.getCache().evict(Member.class, id));
+
+        // 호출한 쪽에 영속성 컨텍스트가 열려 있을 때만 (트랜잭션 / OSIV)
+        if (ids.isEmpty() || !TransactionSynchronizationManager.hasResource(emf)) {
+            return;
+        }
+
+        SessionImplementor session = (SessionImplementor) em.unwrap(Session.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        for (Long id : ids) {
+            Object managed = session.getPersistenceContextInternal().getEntity(new EntityKey(id, persister));
+            if (managed != null) {
+                em.detach(managed);
+            }
+        }
+    }
+
+    private static void sleep(Duration throttle) {
+        try {
+            Thread.sleep(throttle.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("벌크 수정이 중단되었습니다.", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Page 의 totalCount 는 매번 count 쿼리를 날린다. 데이터가 많으면 컨텐츠 조회보다 count 가 더 비싸다.
+// 쿼리 + 파라미터를 키로 count 결과를 ttl 동안 캐시한다.
+// 회원이 저장 / 삭제 / 벌크 수정되면 MemberCacheInvalidator 가 전부 비운다.
+// 쓰기 트랜잭션 안에서 센 count 는 아직 커밋하지 않은 변경이 섞여 있을 수 있다. -> 돌려주기만 하고 캐시하지 않는다.
+@Component
+public class MemberCountCache {
+
+    private final long ttlNanos;
+    private final boolean approximate;
+    private final long resyncNanos;
+
+    private final Map<Key, Entry> counts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong(); // invalidate 전에 시작한 count 결과가 다시 들어가지 않도록
+
+    // approximate 모드 : 전체 회원 수를 저장 / 삭제 이벤트로 +1 / -1 해가면서 유지한다.
+    // 벌크 연산은 이벤트가 없기 때문에 resync 주기마다 한번 정확한 count 로 맞춘다.
+    private final AtomicLong estimate = new AtomicLong(-1); // -1 : 아직 모른다.
+    private volatile long estimatedAt;
+
+    public MemberCountCache(@Value("${member.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.count-cache.approximate:false}") boolean approximate,
+                            @Value("${member.count-cache.approximate-resync:10m}") Duration resync) {
+        this.ttlNanos = ttl.toNanos();
+        this.approximate = approximate;
+        this.resyncNanos = resync.toNanos();
+    }
+
+    public long count(String query, List<Object> params, LongSupplier countQuery) {
+        Key key = new Key(query, params);
+        long now = System.nanoTime();
+
+        Entry entry = counts.get(key);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            return entry.value;
+        }
+
+        long loadedGeneration = generation.get();
+        long value = countQuery.getAsLong();
+        if (generation.get() == loadedGeneration && isCommittedView()) {
+            counts.put(key, new Entry(value, now));
+        }
+        return value;
+    }
+
+    // 조건 없는 전체 count. approximate 모드면 count 쿼리 없이 추정치를 돌려준다.
+    public long countAll(String query, LongSupplier countQuery) {
+        if (!approximate) {
+            return count(query, List.of(), countQuery);
+        }
+
+        long current = estimate.get();
+        if (current >= 0 && System.nanoTime() - estimatedAt < resyncNanos) {
+            return current;
+        }
+
+        long exact = countQuery.getAsLong();
+        estimate.set(exact);
+        estimatedAt = System.nanoTime();
+        return exact;
+    }
+
+    // 트랜잭션 밖이거나 읽기 전용 트랜잭션이면 커밋된 데이터만 보인다.
+    private static boolean isCommittedView() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    void increment() {
+        estimate.updateAndGet(value -> value < 0 ? value : value + 1);
+    }
+
+    void decrement() {
+        estimate.updateAndGet(value -> value <= 0 ? value : value - 1);
+    }
+
+    private static final class Key {
+
+        private final String query;
+        private final List<Object> params;
+
+        private Key(String query, List<Object> params) {
+            this.query = query;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return query.equals(key.query) && params.equals(key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, params);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long value;
+        private final long loadedAt;
+
+        private Entry(long value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
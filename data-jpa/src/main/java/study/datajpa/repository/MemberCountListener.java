@@ -0,0 +1,43 @@
+package study.datajpa.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+
+// approximate count 를 증분으로 유지하기 위한 엔티티 리스너
+// 하이버네이트가 스프링 빈 컨테이너를 통해 생성하기 때문에 생성자 주입이 된다.
+// @PostPersist / @PostRemove 는 flush 시점에 불린다. -> 트랜잭션 안이라면 커밋된 뒤에 반영한다. (롤백된 저장은 세지 않는다.)
+public class MemberCountListener {
+
+    private final MemberCountCache memberCountCache;
+
+    public MemberCountListener(MemberCountCache memberCountCache) {
+        this.memberCountCache = memberCountCache;
+    }
+
+    @PostPersist
+    public void postPersist(Member member) {
+        afterCommit(memberCountCache::increment);
+    }
+
+    @PostRemove
+    public void postRemove(Member member) {
+        afterCommit(memberCountCache::decrement);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
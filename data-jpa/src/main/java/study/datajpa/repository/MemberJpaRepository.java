@@ -69,8 +69,9 @@ public class MemberJpaRepository {
                 .getSingleResult();
     }
 
+    // version 도 올려서 낙관적 락과 함께 쓸 수 있게 한다. (MemberRepository.bulkAgePlus 와 같다.)
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
     }
@@ -0,0 +1,49 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberProjection;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+
+// MemberRepository 의 Page 반환 메소드들을 count 캐시를 거치도록 감싼 리포지토리
+// 컨텐츠는 count 쿼리가 없는 List 반환 메소드로 가져오고, totalCount 는 MemberCountCache 에서 가져온다.
+// PageableExecutionUtils 는 첫 페이지 / 마지막 페이지처럼 count 가 필요 없는 경우에는 아예 count 를 호출하지 않는다.
+@RequiredArgsConstructor
+@Repository
+@Transactional(readOnly = true) // 컨텐츠와 count 를 같은 읽기 트랜잭션 (읽기 복제본) 에서 조회한다.
+public class MemberPagingRepository {
+
+    private final MemberRepository memberRepository;
+    private final MemberCountCache memberCountCache;
+
+    public Page<Member> findAll(Pageable pageable) {
+        List<Member> content = memberRepository.findListBy(pageable);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> memberCountCache.countAll("Member.count", memberRepository::count));
+    }
+
+    public Page<Member> findByAge(int age, Pageable pageable) {
+        List<Member> content = memberRepository.findListByAge(age, pageable);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> memberCountCache.count("Member.countByAge", List.of(age), () -> memberRepository.countByAge(age)));
+    }
+
+    public Page<Member> findByAgeDetachCountQuery(int age, Pageable pageable) {
+        List<Member> content = memberRepository.findListDetachCountQuery(pageable);
+        return PageableExecutionUtils.getPage(content, pageable,
+                // count(m.username) 는 username 이 null 인 회원을 빼고 센다. -> 전체 회원 추정치 (countAll) 를 쓰면 안 된다.
+                () -> memberCountCache.count("Member.countUsername", List.of(), memberRepository::countUsername));
+    }
+
+    public Page<MemberProjection> findByNativeProjection(Pageable pageable) {
+        List<MemberProjection> content = memberRepository.findListByNativeProjection(pageable);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> memberCountCache.countAll("Member.count", memberRepository::count));
+    }
+}
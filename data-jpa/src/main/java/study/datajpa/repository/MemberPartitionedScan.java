@@ -0,0 +1,294 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.datasource.HikariPools;
+import study.datajpa.dto.MemberDto;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// 회원 전체를 member_id 범위 partitions 개로 나눠서 동시에 읽는다. (야간 재계산 같은 전체 작업용)
+// findAll() / findAllMembers() 는 한 스레드, 한 트랜잭션에서 전체를 읽는다.
+// - 파티션마다 읽기 전용 트랜잭션 하나에서 fetchSize 씩 커서로 읽는다. (streamAllMemberDtos 와 같은 DTO 조회)
+// - JDBC 는 블로킹이다. -> 공용 ForkJoinPool 이 아니라 커넥션 풀 크기를 넘지 않는 전용 스레드 풀에서 읽는다.
+// consumer 를 부르는 방식은 두 가지다.
+// - scan : 읽은 회원은 크기가 queueCapacity 인 큐에 넣고, consumer 는 호출한 스레드에서 하나씩 받는다.
+//   consumer 가 느리면 큐가 차서 파티션 스레드가 기다린다. (backpressure) -> 힙 사용량이 queueCapacity 로 묶인다.
+//   consumer 는 스레드 안전하지 않아도 되지만, consumer 가 한 스레드라서 처리량이 consumer 하나로 묶인다.
+// - scanParallel : consumer 를 파티션 스레드에서 바로 부른다. consumer 는 스레드 안전해야 한다.
+//   파티션 스레드는 consumer 가 돌아와야 다음 행을 읽는다. -> 동시에 처리 중인 회원은 스레드 수 만큼, 힙은 스레드 수 x fetchSize 로 묶인다.
+//
+// id 는 시간 순이라 범위를 똑같이 나눠도 파티션마다 회원 수가 다를 수 있다.
+// 스레드보다 파티션을 넉넉히 (기본 스레드 수 x 4) 나누면 먼저 끝난 스레드가 다음 파티션을 가져가서 고르게 된다.
+// 파티션끼리 순서는 보장하지 않는다. 파티션마다 다른 트랜잭션이라 한 시점의 스냅샷이 아니다.
+// consumer 나 파티션 하나가 예외를 던지면 남은 파티션을 멈추고 그 예외를 그대로 던진다.
+// 아직 시작하지 않은 파티션은 스레드 풀 큐에서 취소한다. -> 트랜잭션 / 커넥션을 잡지 않는다.
+@Slf4j
+@Component
+public class MemberPartitionedScan {
+
+    private static final MemberDto END = new MemberDto(null, null, null); // 파티션 하나가 끝났다.
+    private static final long POLL_TIMEOUT_MILLIS = 100; // 이 간격으로 취소되었는지 확인한다.
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int threads;
+    private final int fetchSize;
+    private final int queueCapacity;
+
+    public MemberPartitionedScan(PlatformTransactionManager transactionManager,
+                                 DataSource dataSource,
+                                 @Value("${member.scan.parallelism:4}") int parallelism,
+                                 @Value("${member.scan.fetch-size:500}") int fetchSize,
+                                 @Value("${member.scan.queue-capacity:1000}") int queueCapacity) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.threads = Math.max(1, Math.min(parallelism, HikariPools.maximumPoolSize(dataSource)));
+        this.fetchSize = fetchSize;
+        this.queueCapacity = queueCapacity;
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "member-scan-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public long scan(Consumer<MemberDto> consumer) {
+        return scan(threads * 4, consumer);
+    }
+
+    // 반환값 : consumer 에 넘긴 회원 수
+    public long scan(int partitions, Consumer<MemberDto> consumer) {
+        long start = System.nanoTime();
+        List<long[]> bounds = partitions(partitions);
+        if (bounds.isEmpty()) {
+            return 0;
+        }
+
+        BlockingQueue<MemberDto> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Scan scan = new Scan();
+        for (long[] bound : bounds) {
+            scan.submit(executor, () -> {
+                try {
+                    readPartition(bound[0], bound[1], scan, member -> offer(queue, member, scan));
+                } finally {
+                    offer(queue, END, scan);
+                }
+            });
+        }
+
+        long rows = 0;
+        int finished = 0;
+        try {
+            while (finished < bounds.size() && !scan.cancelled) { // 파티션이 실패하면 아래 rethrowFailure 에서 던진다.
+                MemberDto member = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (member == null) {
+                    continue;
+                }
+                if (member == END) {
+                    finished++;
+                    continue;
+                }
+                consumer.accept(member);
+                rows++;
+            }
+        } catch (InterruptedException e) {
+            scan.cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("파티션 스캔이 중단되었습니다.", e);
+        } catch (RuntimeException | Error e) {
+            scan.cancel();
+            throw e;
+        } finally {
+            queue.clear(); // 큐가 차서 기다리는 파티션 스레드를 깨운다.
+        }
+
+        scan.rethrowFailure();
+        log.info("파티션 스캔 완료 : rows = {}, partitions = {}, threads = {}, elapsed = {}ms",
+                rows, bounds.size(), threads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rows;
+    }
+
+    public long scanParallel(Consumer<MemberDto> consumer) {
+        return scanParallel(threads * 4, consumer);
+    }
+
+    // consumer 는 여러 파티션 스레드에서 동시에 불린다. -> 스레드 안전해야 한다.
+    // 반환값 : consumer 에 넘긴 회원 수
+    public long scanParallel(int partitions, Consumer<MemberDto> consumer) {
+        long start = System.nanoTime();
+        List<long[]> bounds = partitions(partitions);
+        if (bounds.isEmpty()) {
+            return 0;
+        }
+
+        LongAdder rows = new LongAdder();
+        Scan scan = new Scan();
+        for (long[] bound : bounds) {
+            scan.submit(executor, () -> readPartition(bound[0], bound[1], scan, member -> {
+                consumer.accept(member);
+                rows.increment();
+                return !scan.cancelled;
+            }));
+        }
+
+        scan.await();
+        scan.rethrowFailure();
+        log.info("병렬 파티션 스캔 완료 : rows = {}, partitions = {}, threads = {}, elapsed = {}ms",
+                rows.sum(), bounds.size(), threads, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rows.sum();
+    }
+
+    private List<long[]> partitions(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions 는 1 이상이어야 합니다. partitions = " + partitions);
+        }
+        Object[] range = readOnlyTransaction.execute(status ->
+                em.createQuery("select min(m.id), max(m.id) from Member m", Object[].class).getSingleResult());
+        if (range == null || range[0] == null) {
+            return List.of();
+        }
+        return split((Long) range[0], (Long) range[1], partitions);
+    }
+
+    // [min, max] 를 partitions 개의 연속된 범위로 나눈다. 범위가 partitions 보다 좁으면 그만큼만 나눈다.
+    static List<long[]> split(long min, long max, int partitions) {
+        long width = max - min + 1;
+        int count = (int) Math.min(partitions, width);
+        List<long[]> bounds = new ArrayList<>(count);
+        long from = min;
+        for (int i = 1; i <= count; i++) {
+            long to = i == count ? max : min + width / count * i + Math.min(i, width % count) - 1;
+            bounds.add(new long[]{from, to});
+            from = to + 1;
+        }
+        return bounds;
+    }
+
+    // sink 가 false 를 돌려주면 (취소) 그만 읽는다.
+    private void readPartition(long from, long to, Scan scan, Predicate<MemberDto> sink) {
+        if (scan.cancelled) {
+            return; // 취소되기 직전에 꺼내진 파티션. 트랜잭션을 열지 않는다.
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<MemberDto> members = em.createQuery(
+                                "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) " +
+                                        "from Member m left join m.team t where m.id between :from and :to order by m.id",
+                                MemberDto.class)
+                        .setParameter("from", from)
+                        .setParameter("to", to)
+                        .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                        .getResultStream()) {
+                    for (MemberDto member : (Iterable<MemberDto>) members::iterator) {
+                        if (!sink.test(member)) {
+                            return; // 취소되었다.
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            scan.fail(e);
+        }
+    }
+
+    // 큐에 자리가 날 때까지 기다린다. 취소되면 false
+    private static boolean offer(BlockingQueue<MemberDto> queue, MemberDto member, Scan scan) {
+        try {
+            while (!scan.cancelled) {
+                if (queue.offer(member, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scan.cancel();
+            return false;
+        }
+    }
+
+    // 스캔 한 번의 파티션 작업들. 처음 실패한 예외를 기억하고, 실패하면 나머지를 취소한다.
+    private static class Scan {
+        private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile boolean cancelled;
+
+        private void submit(ExecutorService executor, Runnable partition) {
+            futures.add(executor.submit(partition));
+            if (cancelled) {
+                cancel(); // 제출하는 도중에 실패했다.
+            }
+        }
+
+        private void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+            cancel();
+        }
+
+        // 실행 중인 파티션은 다음 행에서 cancelled 를 보고 멈춘다. 아직 시작하지 않은 파티션은 큐에서 빠진다.
+        private void cancel() {
+            cancelled = true;
+            futures.forEach(future -> future.cancel(false));
+        }
+
+        // 시작한 파티션이 모두 끝날 때까지 기다린다. 파티션 예외는 fail 로 이미 기록했다.
+        private void await() {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (CancellationException | ExecutionException e) {
+                    // 취소되었거나 (실패한 스캔) 이미 fail 로 기록한 예외
+                } catch (InterruptedException e) {
+                    cancel();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("파티션 스캔이 중단되었습니다.", e);
+                }
+            }
+        }
+
+        private void rethrowFailure() {
+            Throwable e = failure.get();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+}
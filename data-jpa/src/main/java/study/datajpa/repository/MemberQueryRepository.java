@@ -1,11 +1,14 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Repository
@@ -13,11 +16,24 @@ public class MemberQueryRepository {
 
     private final EntityManager em;
 
+    // 전체를 읽는 작업은 MemberPartitionedScan 으로 나눠서 동시에 읽을 수 있다.
     public List<Member> findAllMembers() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
 
+    // 전체 회원 내보내기용 스트리밍 조회
+    // getResultList() 는 전체 결과를 한번에 메모리에 올리고, 엔티티라면 전부 영속성 컨텍스트에 쌓인다.
+    // DTO 로 바로 조회하면 영속성 컨텍스트에 아무것도 쌓이지 않는다. -> 주기적으로 detach / clear 할 필요가 없다.
+    // fetchSize 만큼씩 커서로 읽어오기 때문에 몇 건이든 힙 사용량이 일정하다.
+    // 스트림은 트랜잭션 안에서 소비하고 반드시 close 해야 한다. (try-with-resources)
+    public Stream<MemberDto> streamAllMemberDtos(int fetchSize) {
+        return em.createQuery("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) " +
+                        "from Member m left join m.team t order by m.id", MemberDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
     // 특정 화면 혹은 API 에 종속적인 / 의존적인 Query 전용 리포지토리
     // 핵심 비지니스 로직과 유지보수 라이프 사이클이 다르다.
 }
@@ -5,6 +5,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.dto.MemberProjection;
 import study.datajpa.dto.UsernameOnly;
@@ -33,6 +35,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // 강력한 장점 : 애플리케이션 로딩 시점에 쿼리 오류를 잡는다.
     // 정적 쿼리 이기 때문에, 미리
     // 기본적으로 jpql 은 문자열이기 때문에, 실제 실행해보기 전까지는 제대로 동작하는지 모른다. 하지만, @NamedQuery 는 다르다.
+    // 엔티티가 필요 없는 읽기는 username 캐시를 거치는 findViewsByUsername / findViewByUsername 을 쓴다.
     List<Member> findByUsername(@Param("username") String username);
 
     // @NamedQuery 와 동일하게 애플리케이션 로딩 시점에 쿼리 오류를 확인할 수 있다.
@@ -60,12 +63,52 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     Slice<Member> findSliceByAge(int age, Pageable pageable);
     List<Member> findListByAge(int age, Pageable pageable); // content 만 받아올 수도 있다.
 
+    // 키셋(seek) 페이징 : offset 으로 앞의 row 를 읽고 버리는 대신, 마지막으로 읽은 (username, id) 다음부터 바로 찾아간다.
+    // 반환 타입이 Slice 이므로 count 쿼리가 나가지 않는다. (limit + 1 로 다음 페이지 여부만 확인)
+    // 정렬 조건은 쿼리에 고정되어 있다. Pageable 은 size 로만 사용한다.
+    // 직접 선언한 쿼리 메소드에는 기본 트랜잭션이 없다. -> readOnly 트랜잭션을 걸어야 읽기 복제본으로 라우팅된다.
+    // username 은 null 일 수 있다. null 은 비교 연산으로 찾을 수 없으므로 맨 앞에 모으고 (nulls first), 커서도 따로 처리한다.
+    @Transactional(readOnly = true)
+    @Query("select m from Member m order by m.username asc nulls first, m.id asc")
+    Slice<Member> findFirstKeysetPage(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("select m from Member m " +
+            "where m.username > :username or (m.username = :username and m.id > :id) " +
+            "order by m.username asc nulls first, m.id asc")
+    Slice<Member> findKeysetPageAfter(@Param("username") String username, @Param("id") Long id, Pageable pageable);
+
+    // 마지막으로 읽은 회원의 username 이 null 이면 -> 남은 null 회원 (id 순) 다음에 username 이 있는 회원 전부
+    @Transactional(readOnly = true)
+    @Query("select m from Member m " +
+            "where (m.username is null and m.id > :id) or m.username is not null " +
+            "order by m.username asc nulls first, m.id asc")
+    Slice<Member> findKeysetPageAfterNullUsername(@Param("id") Long id, Pageable pageable);
+
+    default Slice<Member> findKeysetPageAfter(MemberCursor after, Pageable pageable) {
+        if (after.getUsername() == null) {
+            return findKeysetPageAfterNullUsername(after.getId(), pageable);
+        }
+        return findKeysetPageAfter(after.getUsername(), after.getId(), pageable);
+    }
+
     @Query(value = "select m from Member m", countQuery = "select count(m.username) from Member m")
     Page<Member> findByAgeDetachCountQuery(int age, Pageable pageable);
 
+    // count 쿼리 없이 컨텐츠만 조회 -> MemberPagingRepository 가 캐시된 count 와 합쳐서 Page 를 만든다.
+    List<Member> findListBy(Pageable pageable);
+    long countByAge(int age);
+
+    @Query("select m from Member m")
+    List<Member> findListDetachCountQuery(Pageable pageable);
+
+    @Query("select count(m.username) from Member m")
+    long countUsername();
+
     // @Modifying JPA executeUpdate() 벌크 연산을 실시함. 안하면 Exception
     @Modifying(clearAutomatically = true) // true 값을 주면 em.clear() 를 자동으로 실시해 준다. 벌크 연산 - 영속성 컨텍스트 문제를 해결해준다.
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    // version 도 올린다. -> 벌크 수정 전에 읽은 회원을 낙관적 락으로 수정하면 충돌한다. (벌크 수정을 덮어쓰지 않는다.)
+    @Query("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m left join fetch m.team")
@@ -80,16 +123,22 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // 참고로 페치 조인은 기본적으로 레프트 아웃터 조인이 나간다.
     // 근데 사실 @EntityGraph 는 JPA 의 @NamedEntityGraph 를 사용한 기능이다.
     // 간단한 경우 SpringDataJPA @EntityGraph 를 쓰면 되고, 복잡한 경우에는 직접 jpql 을 짠다. 혹은 querydsl
+    @Transactional(readOnly = true) // 읽기 전용 힌트를 주는 조회는 읽기 복제본으로 보낸다. (이미 쓰기 트랜잭션 안이면 그 트랜잭션을 따른다.)
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
     // SpringDataJpa 는 애노테이션으로 편리하게 동작해줌.
     // 실시간 트래픽이 많은 곳에서는 사용하면 안 된다. -> 옵디먹스락 등 락을 걸지 않는 다른 방법을 찾아봐야 한다. 실제 락을 걸지 않는 다른 Optimistic 락 (낙관적 락)
     // PESSIMISTIC_WRITE 은 비관적 락임
+    // 낙관적 락 대안 : Member 의 @Version + OptimisticRetryExecutor 로 충돌 시 재시도한다.
     @Lock(LockModeType.PESSIMISTIC_WRITE) // JPA 꺼임 select for update 쿼리가 나간다. 조회임에도 불구하고 디비에 락을 걸 수 있다.
     Member findLockByUsername(String username);
 
-    List<UsernameOnly> findProjectionsByUsername(@Param("username") String username);
+    // UsernameOnly 는 오픈 프로젝션이다. 스프링 데이터 쿼리 메소드로 두면 엔티티 전체를 조회한다.
+    // -> findAllProjected 로 SpEL 이 읽는 username, age 컬럼만 조회한다.
+    default List<UsernameOnly> findProjectionsByUsername(String username) {
+        return findAllProjected(MemberSpec.username(username), UsernameOnly.class);
+    }
     List<UsernameOnlyDto> findProjectionsDtoByUsername(@Param("username") String username);
 
     <T> List<T> findProjectionDtoGenericByUsername(@Param("username") String username, Class<T> type);
@@ -102,4 +151,9 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
             countQuery = "select count(*) from member",
             nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
+
+    @Query(value = "select m.member_id as id, m.username, t.name as teamName " +
+            "from member m left join team t on m.team_id = t.team_id",
+            nativeQuery = true)
+    List<MemberProjection> findListByNativeProjection(Pageable pageable);
 }
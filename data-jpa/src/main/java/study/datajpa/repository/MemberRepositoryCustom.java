@@ -1,9 +1,24 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Example;
+import study.datajpa.dto.MemberView;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    List<Member> findAllShaped(ShapedSpecification<Member> spec);
+
+    List<Member> findAllByExample(Example<Member> example);
+
+    List<MemberView> findViewsByUsername(String username);
+
+    Optional<MemberView> findViewByUsername(String username);
+
+    <T> List<T> findAllProjected(ShapedSpecification<Member> spec, Class<T> type);
 }
@@ -1,16 +1,51 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberView;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
-public class MemberRepositoryImpl implements MemberRepositoryCustom {
+public class MemberRepositoryImpl implements MemberRepositoryCustom, BeanFactoryAware, BeanClassLoaderAware {
 
     // @PersistenceContext 생성자로 구현체 받을 수도 있음.
     private final EntityManager em;
+    private final MemberSpecQueryCache memberSpecQueryCache;
+    private final ExampleSpecificationCompiler exampleSpecificationCompiler;
+    private final OpenProjectionCompiler openProjectionCompiler;
+    private final ObjectProvider<MemberUsernameCache> memberUsernameCache; // 캐시가 MemberRepository 를 주입받는다. -> 나중에 꺼낸다.
+    // 스프링 데이터 리포지토리가 만드는 팩토리와 같게 빈 팩토리 (@Value 의 @bean 참조) 와 클래스 로더를 넘겨준다.
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        projectionFactory.setBeanFactory(beanFactory);
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        projectionFactory.setBeanClassLoader(classLoader);
+    }
 
     @Override
     public List<Member> findMemberCustom() {
@@ -18,6 +53,95 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .getResultList();
     }
 
+    // Criteria 를 만들지 않고, 조건 모양별로 캐시된 JPQL 에 값만 바인딩한다.
+    @Override
+    public List<Member> findAllShaped(ShapedSpecification<Member> spec) {
+        TypedQuery<Member> query = em.createQuery(memberSpecQueryCache.jpql(spec), Member.class);
+        List<Object> values = spec.getValues();
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter("p" + i, values.get(i));
+        }
+        return query.getResultList();
+    }
+
+    // findAll(Example) 과 같은 조회. probe 를 ShapedSpecification 으로 바꿔서 findAllShaped 로 조회한다.
+    // ExampleSpecificationCompiler 가 지원하지 않는 matcher 면 스프링 QBE 조건을 Criteria 로 조회한다.
+    @Override
+    public List<Member> findAllByExample(Example<Member> example) {
+        Specification<Member> spec = exampleSpecificationCompiler.compile(example);
+        if (spec instanceof ShapedSpecification) {
+            return findAllShaped((ShapedSpecification<Member>) spec);
+        }
+
+        CriteriaBuilder builder = em.getCriteriaBuilder();
+        CriteriaQuery<Member> query = builder.createQuery(Member.class);
+        Root<Member> root = query.from(Member.class);
+        Predicate predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return em.createQuery(query).getResultList();
+    }
+
+    // findByUsername 과 같은 조건을 username 캐시 (MemberUsernameCache) 를 거쳐서 조회한다. 엔티티가 아니라 스냅샷
+    @Override
+    public List<MemberView> findViewsByUsername(String username) {
+        return memberUsernameCache.getObject().findByUsername(username);
+    }
+
+    @Override
+    public Optional<MemberView> findViewByUsername(String username) {
+        return memberUsernameCache.getObject().findOneByUsername(username);
+    }
+
+    // 인터페이스 프로젝션 조회. 프로젝션이 읽는 컬럼만 조회한다. (OpenProjectionCompiler)
+    // 컬럼만으로 만들 수 없는 프로젝션은 스프링 데이터처럼 엔티티를 조회해서 프로젝션으로 감싼다.
+    @Override
+    public <T> List<T> findAllProjected(ShapedSpecification<Member> spec, Class<T> type) {
+        CompiledProjection<T> projection = openProjectionCompiler.compile(type, Member.class);
+        if (!projection.isPrunable()) {
+            return findAllShaped(spec).stream()
+                    .map(member -> projectionFactory.createProjection(type, member))
+                    .collect(Collectors.toList());
+        }
+
+        Query query = em.createQuery(memberSpecQueryCache.jpql(spec, projection.select("Member", "m")));
+        List<Object> values = spec.getValues();
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter("p" + i, values.get(i));
+        }
+        List<?> rows = query.getResultList();
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(projection.create(row instanceof Object[] ? (Object[]) row : new Object[]{row})); // 컬럼이 하나면 배열이 아니다.
+        }
+        return result;
+    }
+
+    // 대량 저장 : batchSize 마다 flush() 로 insert 를 JDBC batch 로 보내고 clear() 로 영속성 컨텍스트를 비운다.
+    // 영속성 컨텍스트가 계속 커지지 않기 때문에 몇 건을 넣든 메모리가 일정하다.
+    // clear() 되기 때문에 저장이 끝난 Member 는 준영속 상태가 된다. 연관된 Team 은 미리 저장되어 있어야 한다.
+    // batchSize 는 hibernate.jdbc.batch_size 와 맞추는 것이 좋다.
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다. batchSize = " + batchSize);
+        }
+
+        int count = 0;
+        for (Member member : members) {
+            em.persist(member);
+            if (++count % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
     // 항상 사용자 정의 리포지토리가 필요한 것은 아니다.
     // 예를 들어서, 특정 화면이나 API 에 종속적인 복잡한 쿼리를 위한
     // MemberQueryRepository 클래스를 생성해서 @Repository 붙여서 만들면 된다.
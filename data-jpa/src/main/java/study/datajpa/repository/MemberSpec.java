@@ -1,28 +1,30 @@
 package study.datajpa.repository;
 
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.criteria.*;
 
+// 조건마다 모양 (키 / JPQL 조각) 을 같이 들고 있는 ShapedSpecification 을 돌려준다.
+// findAll(spec) 으로 쓰면 지금처럼 Criteria 로 동작하고, findAllShaped(spec) 으로 쓰면 모양별로 캐시된 JPQL 로 조회한다.
 public class MemberSpec {
 
-    public static Specification<Member> teamName(final String teamName) {
-        return (root, query, builder) -> {
+    public static ShapedSpecification<Member> teamName(final String teamName) {
+        if (!StringUtils.hasText(teamName)) {
+            return ShapedSpecification.empty();
+        }
 
-            if (!StringUtils.hasText(teamName)) {
-                return null;
-            }
-
-            Join<Object, Team> t = root.join("team", JoinType.INNER);// 회원 팀 조인
-            return builder.equal(t.get("name"), teamName);
-        };
+        return ShapedSpecification.of("teamName", "join m.team t", "t.name = ?", teamName,
+                (root, query, builder) -> {
+                    Join<Object, Team> t = root.join("team", JoinType.INNER);// 회원 팀 조인
+                    return builder.equal(t.get("name"), teamName);
+                });
     }
 
-    public static Specification<Member> username(final String username) {
-        return (root, query, builder) ->
-            builder.equal(root.get("username"), username);
+    public static ShapedSpecification<Member> username(final String username) {
+        return ShapedSpecification.of("username", null, "m.username = ?", username,
+                (root, query, builder) ->
+                        builder.equal(root.get("username"), username));
     }
 }
@@ -0,0 +1,62 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ShapedSpecification 모양별로 만든 JPQL 을 캐시한다.
+// 값이 바뀌어도 JPQL 문자열이 같기 때문에 하이버네이트 query plan cache (hibernate.query.plan_cache_max_size) 에서도 매번 히트한다.
+// 조건 모양의 가짓수는 코드에 있는 조합 수만큼이라서 많지 않다. maxShapes 를 넘으면 캐시하지 않고 매번 만든다.
+// 하이버네이트 쪽 히트 / 미스는 hibernate.cache.query.plan 메트릭으로 나온다.
+@Component
+public class MemberSpecQueryCache {
+
+    private static final String SELECT = "select m from Member m";
+
+    private final Map<String, String> jpqlByShape = new ConcurrentHashMap<>();
+    private final int maxShapes;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MemberSpecQueryCache(MeterRegistry meterRegistry,
+                                @Value("${member.spec-cache.max-shapes:256}") int maxShapes) {
+        this.maxShapes = maxShapes;
+        this.hits = Counter.builder("member.spec.compile").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("member.spec.compile").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("member.spec.shapes", jpqlByShape, Map::size).register(meterRegistry);
+    }
+
+    public String jpql(ShapedSpecification<?> spec) {
+        return jpql(spec, SELECT);
+    }
+
+    // 프로젝션 조회 (findAllProjected) 는 select 절이 다르다. -> select 절까지 키로 쓴다.
+    public String jpql(ShapedSpecification<?> spec, String select) {
+        String shape = select.equals(SELECT) ? spec.getShape() : select + " | " + spec.getShape();
+        String jpql = jpqlByShape.get(shape);
+        if (jpql != null) {
+            hits.increment();
+            return jpql;
+        }
+
+        misses.increment();
+        jpql = spec.toJpql(select);
+        if (jpqlByShape.size() < maxShapes) {
+            jpqlByShape.putIfAbsent(shape, jpql);
+        }
+        return jpql;
+    }
+
+    public double getHitCount() {
+        return hits.count();
+    }
+
+    public double getMissCount() {
+        return misses.count();
+    }
+}
@@ -0,0 +1,128 @@
+package study.datajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.MemberView;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// username 조회 결과를 애플리케이션 메모리에 캐시한다. (Caffeine, W-TinyLFU)
+// findByUsername / findMemberByUsername / findOptionalByUsername / findListByUsername / Member.findByUsername 은 모두 같은 조건이다.
+// -> username 하나를 키로 MemberView 목록을 캐시하고, 단건 조회는 첫번째 값을 쓴다.
+// 관리되는 엔티티가 아니라 불변 스냅샷을 넣는다. 여러 요청이 같은 값을 공유해도 안전하다.
+// 위 finder 들은 영속 엔티티를 돌려줘야 해서 캐시로 대신할 수 없다. 읽기만 하는 곳은 MemberRepository.findViewsByUsername / findViewByUsername 을 쓴다.
+//
+// 캐시에 넣는 값은 커밋된 데이터여야 한다. 쓰기 트랜잭션 안에서 조회한 결과는 아직 커밋하지 않은 (롤백될 수 있는) 변경이 보이기 때문에 캐시하지 않는다.
+//
+// 무효화
+// - Member 저장 / 수정 / 삭제 : MemberUsernameCacheListener. username 이 바뀌면 예전 username 은 id -> username 역색인으로 찾는다.
+// - bulkAgePlus / 청크 벌크 수정 : 엔티티 이벤트가 없기 때문에 전부 비운다.
+// 트랜잭션 안이라면 트랜잭션이 끝난 직후 (커밋 / 롤백 모두) 한번 더 비운다. -> 끝나기 전에 다른 요청이 예전 값을 다시 캐시할 수 있기 때문이다.
+@Component
+public class MemberUsernameCache {
+
+    private final MemberRepository memberRepository;
+    private final Cache<String, List<MemberView>> cache;
+    private final Map<Long, String> usernameById = new ConcurrentHashMap<>(); // 역색인
+    private final AtomicLong generation = new AtomicLong(); // invalidate 전에 시작한 조회 결과가 다시 들어가지 않도록
+
+    public MemberUsernameCache(MemberRepository memberRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${member.username-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${member.username-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.memberRepository = memberRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .removalListener((String username, List<MemberView> views, RemovalCause cause) -> {
+                    if (views != null) {
+                        views.forEach(view -> usernameById.remove(view.getId(), username));
+                    }
+                })
+                .recordStats()
+                .build();
+        // cache.gets (hit / miss), cache.evictions, cache.size ...
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "member.username");
+    }
+
+    public List<MemberView> findByUsername(String username) {
+        List<MemberView> cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        long start = generation.get();
+        List<MemberView> views = memberRepository.findByUsername(username).stream()
+                .map(MemberView::of)
+                .collect(Collectors.toUnmodifiableList());
+        if (generation.get() == start && isCommittedView()) {
+            views.forEach(view -> usernameById.put(view.getId(), username));
+            cache.put(username, views);
+            // 확인과 put 사이에 무효화가 끼어들었으면 (generation 이 올라간 뒤 evict 가 put 보다 먼저) 방금 넣은 값을 뺀다.
+            // 무효화는 generation 을 올린 뒤에 evict 한다. -> 여기서 못 봤다면 그 evict 는 put 뒤에 온다.
+            if (generation.get() != start) {
+                cache.asMap().remove(username, views);
+            }
+        }
+        return views;
+    }
+
+    // 캐시에 없으면 null. 조회하지 않는다.
+    public List<MemberView> findCachedByUsername(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    public Optional<MemberView> findOneByUsername(String username) {
+        return findByUsername(username).stream().findFirst();
+    }
+
+    public void invalidate(Member member) {
+        generation.incrementAndGet();
+        evict(member);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    evict(member);
+                }
+            });
+        }
+    }
+
+    // 트랜잭션 밖이거나 읽기 전용 트랜잭션이면 커밋된 데이터만 보인다.
+    private static boolean isCommittedView() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private void evict(Member member) {
+        if (member.getUsername() != null) {
+            cache.invalidate(member.getUsername());
+        }
+        String previous = member.getId() == null ? null : usernameById.get(member.getId());
+        if (previous != null) {
+            cache.invalidate(previous);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import study.datajpa.entity.Member;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// 회원이 저장 / 수정 / 삭제되면 username 캐시에서 해당 회원이 들어있는 목록을 내린다.
+// MemberUsernameCache 는 MemberRepository 를 주입받는다. EntityManagerFactory 를 만드는 중에 리스너가 생성될 수 있어서 ObjectProvider 로 나중에 꺼낸다.
+public class MemberUsernameCacheListener {
+
+    private final ObjectProvider<MemberUsernameCache> memberUsernameCache;
+
+    public MemberUsernameCacheListener(ObjectProvider<MemberUsernameCache> memberUsernameCache) {
+        this.memberUsernameCache = memberUsernameCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Member member) {
+        memberUsernameCache.getObject().invalidate(member);
+    }
+}
@@ -0,0 +1,217 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.ExpressionState;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.BeanReference;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.ConstructorReference;
+import org.springframework.expression.spel.ast.FunctionReference;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.ast.OpPlus;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.TypeReference;
+import org.springframework.expression.spel.ast.VariableReference;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import java.beans.Introspector;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// 인터페이스 프로젝션을 "필요한 컬럼만 조회 + 미리 만든 getter" 로 바꾼다.
+// 스프링 데이터는 오픈 프로젝션 (@Value SpEL) 이 있으면 엔티티 전체를 조회하고, getter 를 부를 때마다 엔티티에 SpEL 을 평가한다.
+// - 닫힌 getter (getUsername()) 는 같은 이름의 기본 속성 컬럼을 그대로 돌려준다.
+// - @Value getter 는 SpEL 을 파싱해서 AST 에서 target.속성 참조만 모은다. 그 속성 컬럼만 select 한다.
+//   SpEL 은 타입별로 한 번만 파싱하고, AST 를 한 번 훑어서 행 (Object[]) 에서 바로 값을 만드는 함수로 바꾼다. (행마다 맵 / 엔티티 리플렉션 없음)
+//   target.속성 -> 컬럼 위치, 리터럴 -> 상수, 문자열 + -> 이어 붙이기
+//   그 밖의 노드 (삼항 연산, 숫자 + 등) 만 그 노드를 { target : { 속성 : 값 } } 맵에 MapAccessor 로 SpEL 평가한다.
+//   SpEL 컴파일 모드 (MIXED) 는 쓰지 않는다. 컴파일은 식 (SpelExpression) 단위라서 AST 노드를 따로 평가하면 적용되지 않는다.
+//   SpEL 로 평가하는 노드는 해석 모드로 평가된다. 자주 쓰는 모양 (속성, 리터럴, 문자열 +) 은 위처럼 SpEL 을 거치지 않는다.
+// 아래는 컬럼만으로 만들 수 없다. -> requiresEntity (엔티티 전체 조회) 로 두고 ProjectionAdvisor 가 시작할 때 경고한다.
+// - target 을 통째로 쓰거나 (메소드 호출, 연관 엔티티 target.team.name), 빈 (@bean) / 변수 (#var) 를 쓰는 SpEL
+// - 중첩 프로젝션 (연관 엔티티를 인터페이스로 받는 getter), 기본 속성이 아닌 getter
+@Slf4j
+@Component
+public class OpenProjectionCompiler {
+
+    private static final String TARGET = "target";
+
+    private final Metamodel metamodel;
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final EvaluationContext evaluationContext = SimpleEvaluationContext
+            .forPropertyAccessors(new MapAccessor())
+            .build();
+    private final Map<Class<?>, CompiledProjection<?>> compiled = new ConcurrentHashMap<>();
+
+    public OpenProjectionCompiler(EntityManagerFactory emf) {
+        this.metamodel = emf.getMetamodel();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompiledProjection<T> compile(Class<T> type, Class<?> entityType) {
+        return (CompiledProjection<T>) compiled.computeIfAbsent(type, key -> {
+            CompiledProjection<T> projection = doCompile(type, metamodel.managedType(entityType));
+            if (!projection.isPrunable()) {
+                log.warn("프로젝션 {} 은 엔티티 전체를 조회합니다. {}", type.getSimpleName(), projection.getReason());
+            }
+            return projection;
+        });
+    }
+
+    private <T> CompiledProjection<T> doCompile(Class<T> type, ManagedType<?> entity) {
+        if (!type.isInterface()) {
+            return CompiledProjection.requiresEntity(type, "인터페이스 프로젝션이 아닙니다.");
+        }
+
+        Set<String> properties = new TreeSet<>();
+        Map<Method, Object> sources = new HashMap<>(); // getter -> 속성 이름 (String) 또는 SpEL AST (SpelNode)
+        for (Method method : type.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            if (method.getParameterCount() != 0 || !method.getName().startsWith("get")) {
+                return CompiledProjection.requiresEntity(type, method.getName() + " 은 getter 가 아닙니다.");
+            }
+
+            Value value = method.getAnnotation(Value.class);
+            if (value == null) {
+                String property = Introspector.decapitalize(method.getName().substring(3));
+                if (!isBasic(entity, property)) {
+                    return CompiledProjection.requiresEntity(type, method.getName() + " 은 기본 속성이 아닙니다. (중첩 프로젝션 / 연관 엔티티)");
+                }
+                properties.add(property);
+                sources.put(method, property);
+                continue;
+            }
+
+            SpelExpression expression;
+            try {
+                expression = (SpelExpression) parser.parseExpression(value.value(), ParserContext.TEMPLATE_EXPRESSION);
+            } catch (ParseException | ClassCastException e) {
+                return CompiledProjection.requiresEntity(type, method.getName() + " 의 SpEL 을 분석하지 못했습니다. " + value.value());
+            }
+            Set<String> touched = new TreeSet<>();
+            if (!collectTargetProperties(expression.getAST(), entity, touched)) {
+                return CompiledProjection.requiresEntity(type,
+                        method.getName() + " 의 SpEL 이 target 의 기본 속성 말고 다른 것을 씁니다. " + value.value());
+            }
+            properties.addAll(touched);
+            sources.put(method, expression.getAST());
+        }
+
+        List<String> columns = new ArrayList<>(properties);
+        Map<Method, Function<Object[], Object>> getters = new HashMap<>();
+        sources.forEach((method, source) -> getters.put(method, getter(source, columns)));
+        return CompiledProjection.prunable(type, columns, getters);
+    }
+
+    private Function<Object[], Object> getter(Object source, List<String> columns) {
+        if (source instanceof String) {
+            return column(columns.indexOf(source));
+        }
+        return compile((SpelNode) source, columns);
+    }
+
+    // collectTargetProperties 를 통과한 AST 만 들어온다. -> target.속성 은 모두 columns 에 있다.
+    private Function<Object[], Object> compile(SpelNode node, List<String> columns) {
+        if (node instanceof CompoundExpression) { // target.속성
+            String property = ((PropertyOrFieldReference) node.getChild(1)).getName();
+            return column(columns.indexOf(property));
+        }
+        if (node instanceof Literal) {
+            Object value = ((Literal) node).getLiteralValue().getValue();
+            return row -> value;
+        }
+        Function<Object[], Object> evaluated = evaluate(node, columns);
+        if (node instanceof OpPlus && node.getChildCount() == 2) {
+            Function<Object[], Object> left = compile(node.getChild(0), columns);
+            Function<Object[], Object> right = compile(node.getChild(1), columns);
+            // SpEL OpPlus 와 같다. 한쪽이라도 문자열이면 이어 붙이고 (null 은 "null"), 아니면 숫자 덧셈이다. -> SpEL 로 평가
+            return row -> {
+                Object l = left.apply(row);
+                Object r = right.apply(row);
+                if (l instanceof String || r instanceof String) {
+                    return String.valueOf(l).concat(String.valueOf(r));
+                }
+                return evaluated.apply(row);
+            };
+        }
+        return evaluated;
+    }
+
+    private static Function<Object[], Object> column(int index) {
+        return row -> row[index];
+    }
+
+    // 직접 만들 수 없는 노드만 SpEL 로 평가한다. 이때만 행을 맵으로 만든다.
+    private Function<Object[], Object> evaluate(SpelNode node, List<String> columns) {
+        return row -> {
+            Map<String, Object> target = new HashMap<>(columns.size() * 2);
+            for (int i = 0; i < columns.size(); i++) {
+                target.put(columns.get(i), row[i]);
+            }
+            return node.getValue(new ExpressionState(evaluationContext, new TypedValue(Map.of(TARGET, target))));
+        };
+    }
+
+    // target.속성 (기본 속성) 참조만 모은다. 그 밖의 참조가 있으면 false
+    private static boolean collectTargetProperties(SpelNode node, ManagedType<?> entity, Set<String> touched) {
+        if (node instanceof CompoundExpression) {
+            if (node.getChildCount() == 2
+                    && isReference(node.getChild(0), TARGET)
+                    && node.getChild(1) instanceof PropertyOrFieldReference) {
+                String property = ((PropertyOrFieldReference) node.getChild(1)).getName();
+                if (isBasic(entity, property)) {
+                    touched.add(property);
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (node instanceof PropertyOrFieldReference || node instanceof MethodReference || node instanceof BeanReference
+                || node instanceof VariableReference || node instanceof FunctionReference
+                || node instanceof TypeReference || node instanceof ConstructorReference) {
+            return false; // target 만 쓰거나 (메소드 인자 등), 메소드 / 빈 / 변수 / 타입 / 함수 참조
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            if (!collectTargetProperties(node.getChild(i), entity, touched)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isReference(SpelNode node, String name) {
+        return node instanceof PropertyOrFieldReference && ((PropertyOrFieldReference) node).getName().equals(name);
+    }
+
+    private static boolean isBasic(ManagedType<?> entity, String property) {
+        try {
+            return entity.getAttribute(property).getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC;
+        } catch (IllegalArgumentException e) {
+            return false; // 없는 속성
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import study.datajpa.datasource.HikariPools;
+import study.datajpa.dto.CursorSlice;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberView;
+import study.datajpa.entity.Member;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// MemberRepository 의 조회 메소드를 Mono / Flux 로 감싼 리포지토리
+// JDBC 는 블로킹이기 때문에 전용 boundedElastic 스케줄러에서 실행한다.
+// 스레드 수는 커넥션 풀 크기와 같다. -> 스레드가 커넥션을 기다리며 쌓이지 않고, 나머지 작업은 스케줄러 큐에서 기다린다.
+//
+// 엔티티는 트랜잭션 (영속성 컨텍스트) 안에서 DTO 로 바꿔서 내보낸다. 구독 스레드는 지연 로딩을 할 수 없다.
+@Slf4j
+@Repository
+public class ReactiveMemberRepository {
+
+    private final MemberRepository memberRepository;
+    private final MemberPagingRepository memberPagingRepository;
+    private final MemberUsernameCache memberUsernameCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Scheduler scheduler;
+
+    public ReactiveMemberRepository(MemberRepository memberRepository,
+                                    MemberPagingRepository memberPagingRepository,
+                                    MemberUsernameCache memberUsernameCache,
+                                    PlatformTransactionManager transactionManager,
+                                    DataSource dataSource,
+                                    @Value("${member.reactive.queued-task-cap:10000}") int queuedTaskCap) {
+        this.memberRepository = memberRepository;
+        this.memberPagingRepository = memberPagingRepository;
+        this.memberUsernameCache = memberUsernameCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        int threads = HikariPools.maximumPoolSize(dataSource);
+        this.scheduler = Schedulers.newBoundedElastic(threads, queuedTaskCap, "member-jdbc");
+        log.info("reactive 조회 스케줄러 : threads = {}, queuedTaskCap = {}", threads, queuedTaskCap);
+    }
+
+    public Mono<MemberDto> findById(Long id) {
+        return read(() -> memberRepository.findById(id).map(MemberDto::new).orElse(null));
+    }
+
+    // username 캐시를 거친다. 캐시에 있으면 스케줄러로 넘기지 않는다.
+    public Flux<MemberDto> findByUsername(String username) {
+        return Flux.defer(() -> {
+            List<MemberView> cached = memberUsernameCache.findCachedByUsername(username);
+            Flux<MemberView> views = cached != null
+                    ? Flux.fromIterable(cached)
+                    : readAll(() -> memberUsernameCache.findByUsername(username));
+            return views.map(view -> new MemberDto(view.getId(), view.getUsername(), null));
+        });
+    }
+
+    public Flux<MemberDto> findByNames(Collection<String> names) {
+        return readAll(() -> toDto(memberRepository.findByNames(names)));
+    }
+
+    public Flux<MemberDto> findMemberDto() {
+        return readAll(memberRepository::findMemberDto);
+    }
+
+    public Mono<Page<MemberDto>> findAll(Pageable pageable) {
+        return read(() -> memberPagingRepository.findAll(pageable).map(MemberDto::new));
+    }
+
+    // 전체 회원을 키셋 페이지 단위로 흘려보낸다.
+    // expand 는 다운스트림이 요청할 때만 다음 페이지를 조회한다. -> 느린 클라이언트가 있어도 메모리에 pageSize 정도만 쌓인다.
+    public Flux<MemberDto> streamAll(int pageSize) {
+        return findKeysetPage(null, pageSize)
+                .expand(slice -> slice.isHasNext() ? findKeysetPage(slice.getNextCursor(), pageSize) : Mono.empty())
+                .concatMapIterable(CursorSlice::getContent);
+    }
+
+    public Mono<CursorSlice<MemberDto>> findKeysetPage(String cursor, int pageSize) {
+        PageRequest pageRequest = PageRequest.of(0, pageSize);
+        return read(() -> {
+            Slice<Member> slice;
+            if (cursor == null) {
+                slice = memberRepository.findFirstKeysetPage(pageRequest);
+            } else {
+                MemberCursor after = MemberCursor.decode(cursor);
+                slice = memberRepository.findKeysetPageAfter(after, pageRequest);
+            }
+
+            List<Member> content = slice.getContent();
+            String nextCursor = slice.hasNext() ? MemberCursor.of(content.get(content.size() - 1)).encode() : null;
+            return new CursorSlice<>(toDto(content), nextCursor, slice.hasNext());
+        });
+    }
+
+    // null 이면 Mono.empty()
+    private <T> Mono<T> read(Supplier<T> query) {
+        return Mono.fromSupplier(() -> readOnlyTransaction.execute(status -> query.get()))
+                .subscribeOn(scheduler);
+    }
+
+    private <T> Flux<T> readAll(Supplier<List<T>> query) {
+        return read(query).flatMapIterable(list -> list);
+    }
+
+    private static List<MemberDto> toDto(List<Member> members) {
+        return members.stream().map(MemberDto::new).collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.dispose();
+    }
+}
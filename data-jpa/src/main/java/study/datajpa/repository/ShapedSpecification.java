@@ -0,0 +1,128 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// 모양 (어떤 조건들이 and 로 묶였는지) 을 알고 있는 Specification
+// 보통 Specification 은 람다라서 안을 들여다볼 수 없다. -> 조합할 때마다 Criteria 를 다시 만들고, 하이버네이트가 다시 JPQL / SQL 로 바꾼다.
+// 여기서는 조건마다 키 / JPQL 조각 / 파라미터 값을 같이 들고 있다.
+// - 조건은 키 순서로 정렬해서 보관한다. username.and(teamName) 과 teamName.and(username) 은 같은 모양이다.
+// - 모양이 같으면 값이 달라도 JPQL 이 같다. -> MemberSpecQueryCache 가 모양별로 JPQL 을 한 번만 만들고,
+//   하이버네이트는 같은 JPQL 문자열의 쿼리 계획 (query plan cache) 을 재사용한다.
+// 일반 Specification 처럼 findAll(spec) 에 넘겨도 된다. (toPredicate)
+public class ShapedSpecification<T> implements Specification<T> {
+
+    private static final ShapedSpecification<?> EMPTY = new ShapedSpecification<>(List.of());
+
+    private final List<Term<T>> terms;
+
+    private ShapedSpecification(List<Term<T>> terms) {
+        this.terms = terms;
+    }
+
+    // join : 조건에 필요한 조인 (예 : "join m.team t"). 없으면 null
+    // condition : 파라미터 자리를 ? 로 둔 JPQL 조건 (예 : "t.name = ?")
+    public static <T> ShapedSpecification<T> of(String key, String join, String condition, Object value,
+                                                Specification<T> criteria) {
+        List<String> joins = join == null ? List.of() : List.of(join);
+        return new ShapedSpecification<>(List.of(new Term<>(key, joins, condition, value, criteria)));
+    }
+
+    // 모든 조건 앞에 조인을 하나 더 붙인다. 연관 엔티티 안의 조건을 바깥 엔티티 기준으로 옮길 때 쓴다.
+    // (Criteria 쪽은 조건이 경로를 따라 직접 조인한다.)
+    public ShapedSpecification<T> withJoin(String join) {
+        List<Term<T>> joined = new ArrayList<>(terms.size());
+        for (Term<T> term : terms) {
+            List<String> joins = new ArrayList<>();
+            joins.add(join);
+            joins.addAll(term.joins);
+            joined.add(new Term<>(term.key, List.copyOf(joins), term.condition, term.value, term.criteria));
+        }
+        return new ShapedSpecification<>(List.copyOf(joined));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> ShapedSpecification<T> empty() {
+        return (ShapedSpecification<T>) EMPTY;
+    }
+
+    @Override
+    public Specification<T> and(Specification<T> other) {
+        if (!(other instanceof ShapedSpecification)) {
+            return Specification.super.and(other);
+        }
+        return and((ShapedSpecification<T>) other);
+    }
+
+    public ShapedSpecification<T> and(ShapedSpecification<T> other) {
+        List<Term<T>> merged = new ArrayList<>(terms);
+        merged.addAll(other.terms);
+        merged.sort(Comparator.comparing(term -> term.key));
+        return new ShapedSpecification<>(List.copyOf(merged));
+    }
+
+    // 값을 뺀 조건 키 목록. 캐시 키로 쓴다.
+    public String getShape() {
+        return terms.stream().map(term -> term.key).collect(Collectors.joining(" and "));
+    }
+
+    public List<Object> getValues() {
+        return terms.stream().map(term -> term.value).collect(Collectors.toList());
+    }
+
+    // 파라미터 이름은 조건 순서대로 :p0, :p1 ...
+    public String toJpql(String select) {
+        Set<String> joins = new LinkedHashSet<>();
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++) {
+            Term<T> term = terms.get(i);
+            joins.addAll(term.joins);
+            conditions.add(term.condition.replace("?", ":p" + i));
+        }
+
+        StringBuilder jpql = new StringBuilder(select);
+        joins.forEach(join -> jpql.append(' ').append(join));
+        if (!conditions.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", conditions));
+        }
+        return jpql.toString();
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+        List<Predicate> predicates = new ArrayList<>();
+        for (Term<T> term : terms) {
+            Predicate predicate = term.criteria.toPredicate(root, query, builder);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        return predicates.isEmpty() ? null : builder.and(predicates.toArray(new Predicate[0]));
+    }
+
+    private static class Term<T> {
+        private final String key;
+        private final List<String> joins;
+        private final String condition;
+        private final Object value;
+        private final Specification<T> criteria;
+
+        private Term(String key, List<String> joins, String condition, Object value, Specification<T> criteria) {
+            this.key = key;
+            this.joins = joins;
+            this.condition = condition;
+            this.value = value;
+            this.criteria = criteria;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package study.datajpa.repository;
 
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Team;
 
@@ -25,10 +26,12 @@ public class TeamJpaRepository {
 
     public List<Team> findAll() {
         return em.createQuery("select t from Team t", Team.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true) // 쿼리 캐시
                 .getResultList();
     }
 
     public Optional<Team> findById(Long id) {
+        // em.find() 는 영속성 컨텍스트 -> 2차 캐시 -> DB 순서로 찾는다.
         Team team = em.find(Team.class, id);
         return Optional.ofNullable(team);
     }
@@ -1,7 +1,18 @@
 package study.datajpa.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import study.datajpa.entity.Team;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    // findById 는 em.find() 이기 때문에 엔티티 2차 캐시를 바로 사용한다.
+    // 쿼리는 쿼리 캐시에 결과 id 목록을 저장하고, 엔티티는 다시 엔티티 캐시에서 가져온다.
+    // Team 테이블이 변경되면 쿼리 캐시는 자동으로 무효화된다.
+    @Override
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Team> findAll();
 }
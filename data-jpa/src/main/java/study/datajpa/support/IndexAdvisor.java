@@ -0,0 +1,243 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberSpec;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// 인덱스 어드바이저 (index.advisor.enabled=true, H2 전용)
+// 애플리케이션이 뜬 뒤 Member 리포지토리의 쿼리 메소드 (@Query / @NamedQuery / 메소드 이름 쿼리) 와 MemberSpec 조건을 SQL 로 바꿔서
+// H2 EXPLAIN 을 실행하고, 조건이 있는데 인덱스를 타지 못하는 (tableScan) 쿼리를 경고한다.
+// 조건이 없는 쿼리 (전체 조회) 는 원래 전체 스캔이다. -> debug 로만 남긴다.
+//
+// 파라미터 값은 모두 null 로 실행한다. 실행 계획은 값이 아니라 조건 모양으로 정해진다.
+// Pageable / Sort 파라미터로 들어오는 정렬은 실행 시점에 정해지기 때문에 확인하지 못한다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "index.advisor", name = "enabled", havingValue = "true")
+public class IndexAdvisor {
+
+    private static final String FULL_SCAN = ".tableScan";
+
+    private final ListableBeanFactory beanFactory;
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Getter
+    private List<Advice> advices = Collections.emptyList();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"H2".equalsIgnoreCase(product)) {
+            log.info("인덱스 어드바이저는 H2 에서만 동작합니다. database = {}", product);
+            return;
+        }
+
+        advices = analyze();
+        long fullScans = advices.stream().filter(Advice::isFullScan).count();
+        log.info("인덱스 어드바이저 : 쿼리 {} 개 중 전체 스캔 {} 개", advices.size(), fullScans);
+    }
+
+    public List<Advice> analyze() {
+        Map<String, String> jpqls = new HashMap<>();
+        collectQueryMethods(jpqls);
+        collectSpecifications(jpqls);
+
+        List<Advice> result = new ArrayList<>();
+        jpqls.forEach((source, jpql) -> {
+            try {
+                for (String sql : toSql(jpql)) {
+                    Advice advice = explain(source, sql);
+                    result.add(advice);
+                    if (advice.isFullScan()) {
+                        log.warn("전체 스캔 : {}\n  sql  : {}\n  plan : {}", source, sql, advice.getPlan());
+                    } else {
+                        log.debug("{} -> {}", source, advice.getPlan());
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.debug("실행 계획을 확인하지 못했습니다. {} : {}", source, e.getMessage());
+            }
+        });
+        return result;
+    }
+
+    private void collectQueryMethods(Map<String, String> jpqls) {
+        RepositoryInformation information = new Repositories(beanFactory).getRequiredRepositoryInformation(Member.class);
+        Map<String, String> namedQueries = new HashMap<>();
+        NamedQuery namedQuery = Member.class.getAnnotation(NamedQuery.class);
+        if (namedQuery != null) {
+            namedQueries.put(namedQuery.name(), namedQuery.query());
+        }
+
+        for (Method method : information.getQueryMethods()) {
+            String source = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+            Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+            if (query != null && !query.value().isEmpty()) {
+                jpqls.put(source, query.nativeQuery() ? "native:" + query.value() : query.value());
+            } else if (namedQueries.containsKey("Member." + method.getName())) {
+                jpqls.put(source, namedQueries.get("Member." + method.getName()));
+            } else {
+                String derived = derivedJpql(method.getName());
+                if (derived != null) {
+                    jpqls.put(source, derived);
+                }
+            }
+        }
+    }
+
+    // MemberSpec 의 static 메소드 (String 하나를 받아서 Specification 을 만드는) 를 하나씩 쿼리로 만든다.
+    @SuppressWarnings("unchecked")
+    private void collectSpecifications(Map<String, String> jpqls) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (Method method : MemberSpec.class.getDeclaredMethods()) {
+                if (!Modifier.isStatic(method.getModifiers())
+                        || !Specification.class.isAssignableFrom(method.getReturnType())
+                        || method.getParameterCount() != 1
+                        || method.getParameterTypes()[0] != String.class) {
+                    continue;
+                }
+
+                Specification<Member> spec = (Specification<Member>) method.invoke(null, "advisor");
+                CriteriaBuilder builder = em.getCriteriaBuilder();
+                CriteriaQuery<Member> query = builder.createQuery(Member.class);
+                Root<Member> root = query.from(Member.class);
+                Predicate predicate = spec.toPredicate(root, query, builder);
+                if (predicate != null) {
+                    query.where(predicate);
+                }
+                String jpql = em.createQuery(query).unwrap(org.hibernate.query.Query.class).getQueryString();
+                jpqls.put("MemberSpec." + method.getName(), jpql);
+            }
+        } catch (ReflectiveOperationException e) {
+            log.debug("MemberSpec 을 확인하지 못했습니다.", e);
+        } finally {
+            em.close();
+        }
+    }
+
+    // 메소드 이름 쿼리를 JPQL 로 옮긴다. 지원하지 않는 조건이 있으면 건너뛴다.
+    private static String derivedJpql(String methodName) {
+        PartTree tree;
+        try {
+            tree = new PartTree(methodName, Member.class);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (tree.isDelete()) {
+            return null;
+        }
+
+        StringJoiner or = new StringJoiner(" or ");
+        int index = 0;
+        for (PartTree.OrPart orPart : tree) {
+            StringJoiner and = new StringJoiner(" and ");
+            for (Part part : orPart) {
+                String path = "m." + part.getProperty().toDotPath();
+                String p = ":p" + index++;
+                switch (part.getType()) {
+                    case SIMPLE_PROPERTY: and.add(path + " = " + p); break;
+                    case NEGATING_SIMPLE_PROPERTY: and.add(path + " <> " + p); break;
+                    case GREATER_THAN: case AFTER: and.add(path + " > " + p); break;
+                    case GREATER_THAN_EQUAL: and.add(path + " >= " + p); break;
+                    case LESS_THAN: case BEFORE: and.add(path + " < " + p); break;
+                    case LESS_THAN_EQUAL: and.add(path + " <= " + p); break;
+                    case IN: and.add(path + " in (" + p + ")"); break;
+                    case LIKE: case STARTING_WITH: and.add(path + " like " + p); break;
+                    case IS_NULL: and.add(path + " is null"); break;
+                    case IS_NOT_NULL: and.add(path + " is not null"); break;
+                    case BETWEEN: and.add(path + " between " + p + " and :p" + index++); break;
+                    default: return null; // containing / ending with 등은 원래 인덱스를 탈 수 없다.
+                }
+            }
+            or.add(and.toString());
+        }
+
+        String select = tree.isCountProjection() ? "select count(m)" : "select m";
+        StringBuilder jpql = new StringBuilder(select).append(" from Member m");
+        if (or.length() > 0) {
+            jpql.append(" where ").append(or);
+        }
+        Sort sort = tree.getSort();
+        if (sort.isSorted()) {
+            StringJoiner orderBy = new StringJoiner(", ", " order by ", "");
+            sort.forEach(order -> orderBy.add("m." + order.getProperty() + " " + order.getDirection().name().toLowerCase()));
+            jpql.append(orderBy);
+        }
+        return jpql.toString();
+    }
+
+    private String[] toSql(String jpql) {
+        if (jpql.startsWith("native:")) {
+            return new String[]{jpql.substring("native:".length())};
+        }
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        return sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getSqlStrings();
+    }
+
+    private Advice explain(String source, String sql) {
+        String plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getString(1) : "";
+                }
+            }
+        });
+        boolean filtered = sql.toLowerCase().contains(" where ");
+        return new Advice(source, sql, plan, filtered && plan.contains(FULL_SCAN));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Advice {
+        private final String source;
+        private final String sql;
+        private final String plan;
+        private final boolean fullScan; // 조건이 있는데 인덱스를 타지 못했다.
+    }
+}
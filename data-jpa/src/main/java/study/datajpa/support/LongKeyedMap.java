@@ -0,0 +1,135 @@
+package study.datajpa.support;
+
+// long 키 -> 값 맵. HashMap<Long, V> 처럼 키를 Long 으로 박싱하지 않는다. (키 배열 + 값 배열, 선형 탐사)
+// - 값으로 null 을 넣을 수 없다. (빈 칸 표시)
+// - 삭제는 지원하지 않는다. 조회 결과를 모으는 용도
+// - 스레드 안전하지 않다.
+public class LongKeyedMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    public LongKeyedMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    // expectedSize 개까지는 배열을 다시 만들지 않는다. (load factor 0.5)
+    public LongKeyedMap(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+        allocate(capacity);
+    }
+
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("LongKeyedMap 에는 null 값을 넣을 수 없습니다. key = " + key);
+        }
+        int index = indexOf(key);
+        V previous = valueAt(index);
+        if (previous == null) {
+            keys[index] = key;
+            if (++size * 2 > keys.length) {
+                values[index] = value;
+                resize();
+                return null;
+            }
+        }
+        values[index] = value;
+        return previous;
+    }
+
+    public V get(long key) {
+        return valueAt(indexOf(key));
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // 키 순서는 정해져 있지 않다.
+    public void forEach(Entry<? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            V value = valueAt(i);
+            if (value != null) {
+                action.accept(keys[i], value);
+            }
+        }
+    }
+
+    public long[] keys() {
+        long[] result = new long[size];
+        int next = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                result[next++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    // 같은 키가 있는 칸, 없으면 처음 만난 빈 칸
+    private int indexOf(long key) {
+        int index = hash(key) & mask;
+        while (values[index] != null && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int index) {
+        return (V) values[index];
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    // 시간 순 id 는 아래 비트 (순번) 가 몰려 있다. -> 비트를 섞어서 칸에 고르게 퍼뜨린다. (murmur3 finalizer)
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> builder.append(builder.length() == 1 ? "" : ", ").append(key).append('=').append(value));
+        return builder.append('}').toString();
+    }
+
+    @FunctionalInterface
+    public interface Entry<V> {
+        void accept(long key, V value);
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.CompiledProjection;
+import study.datajpa.repository.OpenProjectionCompiler;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// 프로젝션 어드바이저
+// 애플리케이션이 뜬 뒤 Member 리포지토리의 쿼리 메소드 중 오픈 프로젝션 (@Value SpEL) 을 돌려주는 메소드를 찾아서 경고한다.
+// 스프링 데이터는 오픈 프로젝션이면 엔티티 전체를 조회한다.
+// - 컬럼만으로 만들 수 있는 프로젝션 -> findAllProjected 로 바꾸라고 알려준다.
+// - 컬럼만으로 만들 수 없는 프로젝션 -> 그 이유를 알려준다. (OpenProjectionCompiler)
+// 동적 프로젝션 (Class<T> 파라미터) 은 실행할 때 타입이 정해지기 때문에 확인하지 못한다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProjectionAdvisor {
+
+    private final ListableBeanFactory beanFactory;
+    private final OpenProjectionCompiler openProjectionCompiler;
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @Getter
+    private List<String> warnings = Collections.emptyList();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        warnings = analyze();
+        warnings.forEach(log::warn);
+    }
+
+    public List<String> analyze() {
+        RepositoryInformation information = new Repositories(beanFactory).getRequiredRepositoryInformation(Member.class);
+        List<String> result = new ArrayList<>();
+        for (Method method : information.getQueryMethods()) {
+            Class<?> returned = information.getReturnedDomainClass(method);
+            if (!returned.isInterface() || returned.isAssignableFrom(Member.class) || returned.getName().startsWith("java.")) {
+                continue; // 엔티티 / 스칼라 / DTO 클래스
+            }
+
+            ProjectionInformation projection = projectionFactory.getProjectionInformation(returned);
+            if (projection.isClosed()) {
+                continue;
+            }
+
+            String source = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+            CompiledProjection<?> compiled = openProjectionCompiler.compile(returned, Member.class);
+            result.add(compiled.isPrunable()
+                    ? String.format("오픈 프로젝션 %s 이 엔티티 전체를 조회합니다. findAllProjected 로 바꾸면 %s 컬럼만 조회합니다. : %s",
+                    returned.getSimpleName(), compiled.getProperties(), source)
+                    : String.format("오픈 프로젝션 %s 이 엔티티 전체를 조회합니다. %s : %s",
+                    returned.getSimpleName(), compiled.getReason(), source));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package study.datajpa.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// 리포지토리 메소드 호출마다 실행 시간과 결과 row 수를 기록한다.
+// repository.invocations : 실행 시간 (p50 / p95 / p99, 히스토그램)
+// repository.rows : 조회한 row 수 / @Modifying 이면 변경된 row 수
+// 태그 : repository, method, query.type (derived, named, query, native, spec, example, crud, custom), outcome
+// method 는 파라미터 타입까지 쓴다. (findKeysetPageAfter(String,Long,Pageable)) -> 오버로드가 한 시계열로 섞이지 않는다.
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final Supplier<MeterRegistry> registry;
+    private final RepositoryInformation repositoryInformation;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(Supplier<MeterRegistry> registry, RepositoryInformation repositoryInformation) {
+        this.registry = registry;
+        this.repositoryInformation = repositoryInformation;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) { // toString(), equals() 등
+            return invocation.proceed();
+        }
+
+        MethodMeters methodMeters = meters.computeIfAbsent(invocation.getMethod(), MethodMeters::new);
+
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            methodMeters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.recordRows(result);
+            return result;
+        } catch (Throwable e) {
+            methodMeters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    String queryTypeOf(Method method) {
+        if (repositoryInformation.isCustomMethod(method)) {
+            return "custom";
+        }
+
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query != null) {
+            return query.nativeQuery() ? "native" : "query";
+        }
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (Arrays.stream(parameterTypes).anyMatch(Specification.class::isAssignableFrom)) {
+            return "spec";
+        }
+        if (Arrays.stream(parameterTypes).anyMatch(Example.class::isAssignableFrom)) {
+            return "example";
+        }
+        if (repositoryInformation.isBaseClassMethod(method)) {
+            return "crud";
+        }
+        if (hasNamedQuery(repositoryInformation.getDomainType().getSimpleName() + "." + method.getName())) {
+            return "named";
+        }
+        return "derived";
+    }
+
+    static String signatureOf(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", method.getName() + "(", ")"));
+    }
+
+    private boolean hasNamedQuery(String name) {
+        Class<?> domainType = repositoryInformation.getDomainType();
+        NamedQuery namedQuery = domainType.getAnnotation(NamedQuery.class);
+        if (namedQuery != null && namedQuery.name().equals(name)) {
+            return true;
+        }
+        NamedQueries namedQueries = domainType.getAnnotation(NamedQueries.class);
+        return namedQueries != null && Arrays.stream(namedQueries.value()).anyMatch(q -> q.name().equals(name));
+    }
+
+    private class MethodMeters {
+
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary rows; // row 수를 알 수 없는 반환 타입이면 null
+        private final boolean modifying;
+
+        MethodMeters(Method method) {
+            Tags tags = Tags.of(
+                    "repository", repositoryInformation.getRepositoryInterface().getSimpleName(),
+                    "method", signatureOf(method),
+                    "query.type", queryTypeOf(method));
+
+            this.success = timer(tags.and("outcome", "success"));
+            this.error = timer(tags.and("outcome", "error"));
+            this.modifying = AnnotatedElementUtils.hasAnnotation(method, Modifying.class);
+            this.rows = modifying || returnsRows(method.getReturnType())
+                    ? DistributionSummary.builder("repository.rows")
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry.get())
+                    : null;
+        }
+
+        private Timer timer(Tags tags) {
+            return Timer.builder("repository.invocations")
+                    .tags(tags)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry.get());
+        }
+
+        void recordRows(Object result) {
+            if (rows == null) {
+                return;
+            }
+            if (modifying) {
+                if (result instanceof Number) {
+                    rows.record(((Number) result).doubleValue());
+                }
+                return;
+            }
+
+            if (result == null) {
+                rows.record(0);
+            } else if (result instanceof Collection) {
+                rows.record(((Collection<?>) result).size());
+            } else if (result instanceof Slice) { // Page 포함
+                rows.record(((Slice<?>) result).getNumberOfElements());
+            } else if (result instanceof Optional) {
+                rows.record(((Optional<?>) result).isPresent() ? 1 : 0);
+            } else {
+                rows.record(1); // 단건 조회
+            }
+        }
+
+        // count, exists, void, Stream 처럼 row 수를 바로 알 수 없는 반환 타입은 제외한다.
+        private boolean returnsRows(Class<?> returnType) {
+            return !(returnType.isPrimitive()
+                    || Number.class.isAssignableFrom(returnType)
+                    || Boolean.class.equals(returnType)
+                    || Void.class.equals(returnType)
+                    || Stream.class.isAssignableFrom(returnType));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package study.datajpa.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 컨트롤러 메소드 하나가 한 요청에서 실행할 수 있는 SQL 개수
+// sql.budget.limits 설정이 있으면 설정이 우선한다.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    int value();
+}
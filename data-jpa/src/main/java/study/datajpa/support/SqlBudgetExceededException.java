@@ -0,0 +1,8 @@
+package study.datajpa.support;
+
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String scope, int budget, String nextSql) {
+        super("SQL 실행 한도를 넘었습니다. scope = " + scope + ", budget = " + budget + ", sql = " + nextSql);
+    }
+}
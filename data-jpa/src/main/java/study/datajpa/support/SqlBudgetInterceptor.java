@@ -0,0 +1,62 @@
+package study.datajpa.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// HTTP 요청 하나를 SqlScope 로 감싼다.
+// 한도는 sql.budget.limits 설정 -> @SqlBudget 순서로 찾고, 둘 다 없으면 개수만 세고 1 + N 경고만 한다.
+@RequiredArgsConstructor
+public class SqlBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = SqlBudgetInterceptor.class.getName() + ".scope";
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final SqlBudgetProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!properties.isEnabled() || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        String key = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        SqlScope scope = sqlStatementCounter.start(key, budgetOf(key, handlerMethod), properties.isFailOnExceed());
+        request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        closeScope(request);
+    }
+
+    // 비동기 요청은 요청 스레드를 먼저 반납한다. -> 이 스레드의 스코프를 여기서 닫는다.
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        closeScope(request);
+    }
+
+    private void closeScope(HttpServletRequest request) {
+        SqlScope scope = (SqlScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            return;
+        }
+        request.removeAttribute(SCOPE_ATTRIBUTE);
+        scope.close();
+        sqlStatementCounter.report(scope);
+    }
+
+    private int budgetOf(String key, HandlerMethod handlerMethod) {
+        Integer configured = properties.getLimits().get(key);
+        if (configured != null) {
+            return configured;
+        }
+        SqlBudget annotation = handlerMethod.getMethodAnnotation(SqlBudget.class);
+        return annotation == null ? 0 : annotation.value();
+    }
+}
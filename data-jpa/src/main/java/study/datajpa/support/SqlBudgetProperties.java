@@ -0,0 +1,25 @@
+package study.datajpa.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "sql.budget")
+public class SqlBudgetProperties {
+
+    private boolean enabled = true;
+
+    // true : 한도를 넘는 SQL 을 실행하기 전에 예외를 던져 요청을 실패시킨다.
+    // false : 요청이 끝난 뒤 경고 로그만 남긴다.
+    private boolean failOnExceed = false;
+
+    // 같은 모양의 SQL 이 이 횟수 이상 반복되면 1 + N 으로 보고 경고한다.
+    private int repeatThreshold = 5;
+
+    // 컨트롤러 메소드별 한도. 키는 "컨트롤러클래스명.메소드명" -> @SqlBudget 보다 우선한다.
+    private Map<String, Integer> limits = new HashMap<>();
+}
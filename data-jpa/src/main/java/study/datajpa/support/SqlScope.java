@@ -0,0 +1,68 @@
+package study.datajpa.support;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// SQL 실행 횟수를 세는 구간. HTTP 요청 / 트랜잭션 / 테스트 코드 블럭 단위로 연다.
+// 같은 모양(shape)의 SQL 이 여러번 반복되면 1 + N 을 의심할 수 있다.
+// 한 스레드 안에서만 사용되기 때문에 동기화하지 않는다.
+public class SqlScope implements AutoCloseable {
+
+    private final String name;
+    private final int budget; // 0 이하면 제한 없음
+    private final boolean failOnExceed;
+    private final Deque<SqlScope> owner; // 이 스코프가 열려 있는 스레드의 스코프 스택
+
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private int statementCount;
+
+    SqlScope(String name, int budget, boolean failOnExceed, Deque<SqlScope> owner) {
+        this.name = name;
+        this.budget = budget;
+        this.failOnExceed = failOnExceed;
+        this.owner = owner;
+    }
+
+    void record(String shape) {
+        if (failOnExceed && budget > 0 && statementCount >= budget) {
+            throw new SqlBudgetExceededException(name, budget, shape);
+        }
+        statementCount++;
+        shapes.merge(shape, 1, Integer::sum);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public boolean isOverBudget() {
+        return budget > 0 && statementCount > budget;
+    }
+
+    public Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+
+    // threshold 번 이상 반복된 SQL 모양 -> 1 + N 의심
+    public Map<String, Integer> getRepeatedShapes(int threshold) {
+        return shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    @Override
+    public void close() {
+        owner.remove(this);
+    }
+}
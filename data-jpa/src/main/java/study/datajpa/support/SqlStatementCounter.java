@@ -0,0 +1,127 @@
+package study.datajpa.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// p6spy 가 실행하는 모든 SQL 을 현재 스레드에 열려 있는 SqlScope 에 기록한다.
+// JdbcEventListener 빈으로 등록하면 p6spy-spring-boot-starter 가 알아서 리스너로 추가한다.
+//
+// 스코프는 두 종류다.
+// 1. 직접 연 스코프 : HTTP 요청(SqlBudgetInterceptor), 테스트 코드 등 -> start() / close()
+// 2. 트랜잭션 스코프 : 트랜잭션 안에서 첫 SQL 이 실행될 때 자동으로 열리고, 트랜잭션이 끝나면 닫힌다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatementCounter extends SimpleJdbcEventListener {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SqlBudgetProperties properties;
+
+    private final ThreadLocal<Deque<SqlScope>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public SqlScope start(String name) {
+        return start(name, 0, false);
+    }
+
+    public SqlScope start(String name, int budget, boolean failOnExceed) {
+        Deque<SqlScope> stack = scopes.get();
+        SqlScope scope = new SqlScope(name, budget, failOnExceed, stack);
+        stack.push(scope);
+        return scope;
+    }
+
+    public void report(SqlScope scope) {
+        Map<String, Integer> repeated = scope.getRepeatedShapes(properties.getRepeatThreshold());
+        repeated.forEach((shape, count) ->
+                log.warn("1 + N 의심 : 같은 SQL 이 {}번 실행되었습니다. scope = {}, sql = {}", count, scope.getName(), shape));
+
+        if (scope.isOverBudget()) {
+            log.warn("SQL 실행 한도 초과 : scope = {}, budget = {}, count = {}",
+                    scope.getName(), scope.getBudget(), scope.getStatementCount());
+        }
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        openTransactionScopeIfNeeded();
+
+        Deque<SqlScope> stack = scopes.get();
+        if (stack.isEmpty()) {
+            return;
+        }
+
+        String shape = shapeOf(statementInformation.getSql());
+        for (SqlScope scope : stack) {
+            scope.record(shape); // 한도를 넘으면 SQL 을 실행하기 전에 예외
+        }
+    }
+
+    // 같은 모양의 SQL 은 같은 문자열이 되도록 리터럴과 in 절 길이를 지운다.
+    static String shapeOf(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private void openTransactionScopeIfNeeded() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        SqlScope scope = start("transaction " + (name == null ? "" : name));
+        TransactionSynchronizationManager.bindResource(this, scope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionScopeSynchronization(scope));
+    }
+
+    // REQUIRES_NEW 등으로 트랜잭션이 보류되면 스코프도 같이 보류한다.
+    @RequiredArgsConstructor
+    private class TransactionScopeSynchronization implements TransactionSynchronization {
+
+        private final SqlScope scope;
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(SqlStatementCounter.this);
+            scopes.get().remove(scope);
+        }
+
+        @Override
+        public void resume() {
+            scopes.get().push(scope);
+            TransactionSynchronizationManager.bindResource(SqlStatementCounter.this, scope);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SqlStatementCounter.this);
+            scope.close();
+            if (scopes.get().isEmpty()) { // HTTP 요청 스코프가 있으면 요청 단위로 한번만 보고한다.
+                report(scope);
+            }
+        }
+    }
+}
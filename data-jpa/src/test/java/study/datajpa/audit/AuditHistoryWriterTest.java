@@ -0,0 +1,57 @@
+package study.datajpa.audit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 이력은 커밋된 뒤에 큐에 들어간다. -> 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+// 속성이 달라서 컨텍스트를 따로 띄운다. -> 공유 TCP DB 에 ddl-auto 를 다시 돌리지 않도록 전용 메모리 DB 를 쓴다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:audit-history;DB_CLOSE_DELAY=-1",
+        "audit.history.enabled=true"
+})
+class AuditHistoryWriterTest {
+
+    @Autowired
+    AuditHistoryWriter auditHistoryWriter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void writeAfterCommit() throws InterruptedException {
+        // Given
+        Member member = memberRepository.save(new Member("auditHistory", 10));
+
+        // When - 큐에 남은 이력은 바로 쓰고, 백그라운드 스레드가 이미 꺼내 간 배치는 쓸 때까지 기다린다.
+        auditHistoryWriter.flush();
+        int count = awaitHistoryCount(member.getId(), 1, Duration.ofSeconds(5));
+
+        // Then
+        assertThat(count).isEqualTo(1);
+        assertThat(auditHistoryWriter.getDropped()).isZero();
+    }
+
+    private int awaitHistoryCount(Long memberId, int expected, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            Integer count = jdbcTemplate.queryForObject(
+                    "select count(*) from audit_history where entity_name = 'Member' and entity_id = ? and action = 'PERSIST'",
+                    Integer.class, String.valueOf(memberId));
+            if (count >= expected || System.nanoTime() > deadline) {
+                return count;
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package study.datajpa.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Item;
+import study.datajpa.repository.ItemRepository;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Item 대량 수집 처리량 측정. 오래 걸리기 때문에 -Dbenchmark=true 로 실행할 때만 동작한다.
+// ./gradlew test --tests '*ItemIngestBenchmarkTest' -Dbenchmark=true
+// persistAll 한 번 + 같은 id 로 upsertAll 한 번 (재전송) -> 두번째는 한 건도 들어가지 않아야 한다.
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:item-benchmark;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info",
+        "decorator.datasource.p6spy.enable-logging=false"
+})
+class ItemIngestBenchmarkTest {
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    void persistAllThenUpsertAll(int rows) {
+        itemRepository.deleteAllInBatch();
+
+        long start = System.nanoTime();
+        int inserted = itemRepository.persistAll(() -> items(rows));
+        double persistSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        start = System.nanoTime();
+        int redelivered = itemRepository.upsertAll(() -> items(rows));
+        double upsertSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        log.info("rows = {}, persistAll = {}ms ({} rows/sec), upsertAll = {}ms ({} rows/sec)",
+                rows, Math.round(persistSeconds * 1000), Math.round(rows / persistSeconds),
+                Math.round(upsertSeconds * 1000), Math.round(rows / upsertSeconds));
+
+        assertThat(inserted).isEqualTo(rows);
+        assertThat(redelivered).isZero();
+        assertThat(itemRepository.count()).isEqualTo(rows);
+    }
+
+    private static Iterator<Item> items(int rows) {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new Item("item-" + next++);
+            }
+        };
+    }
+}
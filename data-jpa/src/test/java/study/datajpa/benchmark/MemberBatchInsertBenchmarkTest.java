@@ -0,0 +1,71 @@
+package study.datajpa.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 대량 저장 처리량 측정. 오래 걸리기 때문에 -Dbenchmark=true 로 실행할 때만 동작한다.
+// ./gradlew test --tests '*MemberBatchInsertBenchmarkTest' -Dbenchmark=true
+// 로그가 측정값을 흐리지 않도록 SQL 로그는 끈다. 디스크 I/O 대신 순수 insert 비용을 보기 위해 메모리 H2 를 사용한다.
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-benchmark;DB_CLOSE_DELAY=-1",
+        "logging.level.org.hibernate.SQL=info",
+        "decorator.datasource.p6spy.enable-logging=false"
+})
+class MemberBatchInsertBenchmarkTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    void saveAllBatched(int rows) {
+        memberRepository.deleteAllInBatch();
+
+        long start = System.nanoTime();
+        int saved = memberRepository.saveAllBatched(() -> members(rows), BATCH_SIZE);
+        long elapsed = System.nanoTime() - start;
+
+        double seconds = elapsed / 1_000_000_000.0;
+        log.info("rows = {}, batchSize = {}, elapsed = {}ms, rows/sec = {}",
+                rows, BATCH_SIZE, elapsed / 1_000_000, Math.round(rows / seconds));
+
+        assertThat(saved).isEqualTo(rows);
+        assertThat(memberRepository.count()).isEqualTo(rows);
+    }
+
+    // 백만 건을 미리 리스트로 만들어 두면 힙 측정이 의미가 없어진다. 필요할 때 하나씩 만든다.
+    private static Iterator<Member> members(int rows) {
+        return new Iterator<>() {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < rows;
+            }
+
+            @Override
+            public Member next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int n = i++;
+                return new Member("member" + n, n % 100);
+            }
+        };
+    }
+}
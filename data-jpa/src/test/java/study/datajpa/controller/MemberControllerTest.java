@@ -0,0 +1,91 @@
+package study.datajpa.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.isA;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 공유 TCP DB 대신 이 테스트 전용 메모리 DB 를 쓴다.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:member-controller;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    // 64 비트 id 는 JSON 숫자로 내보내면 자바스크립트에서 뒷자리가 깨진다. -> 문자열이어야 한다.
+    @Test
+    public void listWritesIdAsString() throws Exception {
+        Member member = memberRepository.save(new Member("jsonId", 10));
+
+        mockMvc.perform(get("/members").param("size", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", everyItem(isA(String.class))))
+                .andExpect(jsonPath("$.content[?(@.username == 'jsonId')].id", contains(String.valueOf(member.getId()))));
+    }
+
+    // 이 DB 에는 이 테스트의 회원만 있다. 숫자로 시작하는 username 이 가장 앞에 온다.
+    @Test
+    public void keysetPagesFromFirstPage() throws Exception {
+        memberRepository.save(new Member("0keyset1", 10));
+        memberRepository.save(new Member("0keyset2", 10));
+        memberRepository.save(new Member("0keyset3", 10));
+
+        // 커서 없이 -> findFirstKeysetPage
+        MvcResult first = mockMvc.perform(get("/members/keyset").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].username", contains("0keyset1", "0keyset2")))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+        String nextCursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        // 다음 커서 -> findKeysetPageAfter
+        mockMvc.perform(get("/members/keyset").param("size", "2").param("cursor", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].username").value("0keyset3"));
+    }
+
+    @Test
+    public void malformedCursorIsBadRequest() throws Exception {
+        String noSeparator = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("no-separator".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/members/keyset").param("cursor", "%%% not base64"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/members/keyset").param("cursor", noSeparator))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void reactiveWritesIdAsString() throws Exception {
+        Member member = memberRepository.save(new Member("reactiveJsonId", 10));
+
+        MvcResult result = mockMvc.perform(get("/reactive/members/{id}", member.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(String.valueOf(member.getId())));
+    }
+}
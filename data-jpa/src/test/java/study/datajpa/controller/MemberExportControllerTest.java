@@ -0,0 +1,111 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 내보내기는 별도 스레드의 별도 트랜잭션에서 조회한다. -> 저장한 데이터가 보이도록 테스트를 트랜잭션으로 묶지 않는다.
+// 전용 메모리 DB 를 쓰고, flush-interval 을 1 로 줘서 한 건마다 flush 하는 경로도 지나가게 한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:member-export;DB_CLOSE_DELAY=-1",
+        "member.export.flush-interval=1"
+})
+@AutoConfigureMockMvc
+class MemberExportControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    public void exportNdjson() throws Exception {
+        // Given
+        Team team = teamRepository.save(new Team("exportTeam"));
+        Member member = memberRepository.save(new Member("exportJson", 10, team));
+        long rows = memberRepository.count();
+
+        // When
+        List<String> lines = export("ndjson", "application/x-ndjson");
+
+        // Then - 한 줄에 회원 하나, id 는 문자열
+        assertThat(lines).hasSize((int) rows);
+        List<JsonNode> nodes = new ArrayList<>();
+        for (String line : lines) {
+            nodes.add(objectMapper.readTree(line));
+        }
+        assertThat(nodes).filteredOn(node -> node.get("username").asText().equals("exportJson"))
+                .singleElement()
+                .satisfies(node -> {
+                    assertThat(node.get("id").isTextual()).isTrue();
+                    assertThat(node.get("id").asText()).isEqualTo(String.valueOf(member.getId()));
+                    assertThat(node.get("teamName").asText()).isEqualTo("exportTeam");
+                });
+    }
+
+    @Test
+    public void exportCsvEscapesFields() throws Exception {
+        // Given
+        Member quoted = memberRepository.save(new Member("say \"hi\", ok", 10));
+        Member plain = memberRepository.save(new Member("exportCsv", 10));
+        long rows = memberRepository.count();
+
+        // When
+        List<String> lines = export("csv", "text/csv");
+
+        // Then - 헤더 + 회원 수, 쉼표 / 따옴표가 든 값은 따옴표로 감싸고 따옴표를 두 번 쓴다. 팀이 없으면 빈 값
+        assertThat(lines).hasSize((int) rows + 1);
+        assertThat(lines.get(0)).isEqualTo("id,username,teamName");
+        assertThat(lines).contains(quoted.getId() + ",\"say \"\"hi\"\", ok\",");
+        assertThat(lines).contains(plain.getId() + ",exportCsv,");
+    }
+
+    @Test
+    public void unknownFormatIsBadRequest() throws Exception {
+        mockMvc.perform(get("/members/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> export(String format, String contentType) throws Exception {
+        MvcResult result = mockMvc.perform(get("/members/export").param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, startsWith(contentType)))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        return body.lines().toList();
+    }
+}
@@ -0,0 +1,88 @@
+package study.datajpa.datasource;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 로컬 H2 메모리 DB 두 개를 primary / 복제본 대신 사용한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "datasource.routing.enabled=true",
+        "datasource.routing.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "datasource.routing.replicas[0].username=sa",
+        "spring.datasource.hikari.maximum-pool-size=7"
+})
+class RoutingDataSourceTest {
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String url = readOnly.execute(status -> currentUrl());
+
+        assertThat(url).contains("routing-replica");
+    }
+
+    @Test
+    public void readWriteTransactionGoesToPrimary() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        String url = readWrite.execute(status -> currentUrl());
+
+        assertThat(url).contains("routing-primary");
+    }
+
+    // OSIV 처럼 요청 하나가 영속성 컨텍스트 하나를 쓴다. 읽기 전용 트랜잭션 다음 쓰기 트랜잭션은 primary 로 가야 한다.
+    @Test
+    public void writeAfterReadOnlyInSameRequestGoesToPrimary() {
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(emf.createEntityManager()));
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+            String readUrl = readOnly.execute(status -> currentUrl());
+            String writeUrl = readWrite.execute(status -> currentUrl());
+
+            assertThat(readUrl).contains("routing-replica");
+            assertThat(writeUrl).contains("routing-primary");
+        } finally {
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.unbindResource(emf);
+            holder.getEntityManager().close();
+        }
+    }
+
+    @Test
+    public void primaryBindsHikariProperties() {
+        assertThat(HikariPools.maximumPoolSize(dataSource)).isEqualTo(7);
+    }
+
+    private String currentUrl() {
+        return em.unwrap(Session.class).doReturningWork(connection -> connection.getMetaData().getURL());
+    }
+}
@@ -1,5 +1,7 @@
 package study.datajpa.entity;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,6 +13,8 @@ import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @Transactional @Rollback(value = false)
 @SpringBootTest
 class MemberTest {
@@ -73,4 +77,63 @@ class MemberTest {
         System.out.println("findMember.getUpdatedDate() = " + findMember.getLastModifiedDate());
         System.out.println("findMember.getLastModifiedBy() = " + findMember.getLastModifiedBy());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void batchFetch() {
+        // Given : 100 개 팀, 팀마다 회원 10 명
+        for (int i = 0; i < 100; i++) {
+            Team team = new Team("batchFetchTeam" + i);
+            em.persist(team);
+            for (int j = 0; j < 10; j++) {
+                em.persist(new Member("batchFetchMember" + i + "-" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        // When : 회원 -> 팀 프록시 초기화
+        statistics.clear();
+        List<Member> members = em.createQuery("select m from Member m where m.username like 'batchFetchMember%'", Member.class)
+                .getResultList();
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+        long memberToTeam = statistics.getPrepareStatementCount();
+
+        em.clear();
+
+        // When : 팀 -> 회원 컬렉션 초기화
+        statistics.clear();
+        List<Team> teams = em.createQuery("select t from Team t where t.name like 'batchFetchTeam%'", Team.class)
+                .getResultList();
+        for (Team team : teams) {
+            team.getMembers().size();
+        }
+        long teamToMembers = statistics.getPrepareStatementCount();
+
+        // Then : 회원 1000 명, 팀 100 개여도 N 에 비례하지 않는다.
+        assertThat(members).hasSize(1000);
+        assertThat(memberToTeam).isEqualTo(2); // 회원 1번 + 팀 in 쿼리 1번 (@BatchSize)
+        assertThat(teams).hasSize(100);
+        assertThat(teamToMembers).isEqualTo(2); // 팀 1번 + 회원 서브쿼리 1번 (SUBSELECT)
+    }
+
+    @Test
+    public void auditedOncePerTransaction() {
+        // Given
+        Member memberA = new Member("auditA", 10);
+        Member memberB = new Member("auditB", 20);
+
+        // When
+        memberRepository.save(memberA);
+        memberRepository.save(memberB);
+        em.flush();
+
+        // Then : 같은 트랜잭션의 변경은 같은 auditor, 같은 시간을 가진다.
+        assertThat(memberA.getCreatedBy()).isNotNull();
+        assertThat(memberB.getCreatedBy()).isEqualTo(memberA.getCreatedBy());
+        assertThat(memberB.getCreatedDate()).isEqualTo(memberA.getCreatedDate());
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeSortedIdsTest {
+
+    @Test
+    public void monotonicWithinNode() {
+        // Given
+        TimeSortedIds ids = TimeSortedIds.forNode(7);
+
+        // When : 밀리초당 순번 (4096) 을 넘도록 만든다.
+        List<Long> generated = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            generated.add(ids.nextId());
+        }
+
+        // Then
+        for (int i = 1; i < generated.size(); i++) {
+            assertThat(generated.get(i)).isGreaterThan(generated.get(i - 1));
+        }
+        assertThat(TimeSortedIds.timestampOf(generated.get(0)))
+                .isBetween(Instant.now().minus(Duration.ofSeconds(10)), Instant.now().plus(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    public void nodesDoNotCollide() {
+        // 같은 밀리초에 만들어도 노드 비트가 다르다.
+        long a = TimeSortedIds.forNode(1).nextId();
+        long b = TimeSortedIds.forNode(2).nextId();
+
+        assertThat(a).isNotEqualTo(b);
+        assertThat(TimeSortedIds.forNode(1)).isSameAs(TimeSortedIds.forNode(1));
+    }
+
+    @Test
+    public void base32SortsLikeNumber() {
+        // Given
+        TimeSortedIds ids = TimeSortedIds.forNode(3);
+        long first = ids.nextId();
+        long second = ids.nextId();
+
+        // When
+        String firstText = TimeSortedIds.toBase32(first);
+        String secondText = TimeSortedIds.toBase32(second);
+
+        // Then : 고정 길이라서 문자열 비교 = 숫자 비교
+        assertThat(firstText).hasSize(TimeSortedIds.BASE32_LENGTH);
+        assertThat(firstText.compareTo(secondText)).isNegative();
+        assertThat(TimeSortedIds.toBase32(1)).isEqualTo("0000000000001");
+        assertThat(TimeSortedIds.toBase32(32)).isEqualTo("0000000000010");
+    }
+}
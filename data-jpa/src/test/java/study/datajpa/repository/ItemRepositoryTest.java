@@ -5,6 +5,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.entity.Item;
 
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -43,4 +49,69 @@ class ItemRepositoryTest {
 
         // em.merge() 정말 특수한 경우에만 쓰고 기본적으로 쓰지 않겠다라고 생각해야 한다.
     }
-}
\ No newline at end of file
+
+    @Test
+    public void generatedAndAssignedIds() {
+        // When
+        Item generated = itemRepository.save(Item.withGeneratedId());
+        Item assigned = itemRepository.save(new Item("assigned-" + UUID.randomUUID()));
+
+        // Then : 생성기 id 는 13 자리, 직접 넣은 id 는 그대로 (merge 가 아니라 persist)
+        assertThat(generated.getId()).hasSize(13);
+        assertThat(itemRepository.findById(generated.getId())).isPresent();
+        assertThat(assigned.getId()).startsWith("assigned-");
+        assertThat(itemRepository.findById(assigned.getId())).isPresent();
+    }
+
+    @Test
+    public void persistAll() {
+        // Given : batch-size (1000) 보다 많아서 마지막 배치는 나머지 row 만 담긴다.
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        List<Item> items = items(prefix, 2500);
+
+        // When
+        int inserted = itemRepository.persistAll(items);
+
+        // Then
+        assertThat(inserted).isEqualTo(2500);
+        assertThat(itemRepository.findById(prefix + "-0").get().getId()).isEqualTo(prefix + "-0");
+        assertThat(itemRepository.findById(prefix + "-0").get().isNew()).isFalse(); // createdDate 가 채워져 있다.
+    }
+
+    @Test
+    public void persistAllGeneratesMissingIds() {
+        // Given
+        List<Item> items = List.of(Item.withGeneratedId(), Item.withGeneratedId(), new Item("assigned-" + UUID.randomUUID()));
+
+        // When
+        int inserted = itemRepository.persistAll(items);
+
+        // Then : id 가 없는 Item 은 시간 순 13 자리 id 를 받는다. 직접 넣은 id 는 그대로
+        assertThat(inserted).isEqualTo(3);
+        assertThat(items.get(0).getId()).hasSize(13);
+        assertThat(items.get(1).getId()).hasSize(13).isNotEqualTo(items.get(0).getId());
+        assertThat(items.get(2).getId()).startsWith("assigned-");
+        assertThat(itemRepository.findAllById(items.stream().map(Item::getId).collect(Collectors.toList()))).hasSize(3);
+    }
+
+    @Test
+    public void upsertAllIsIdempotent() {
+        // Given
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        itemRepository.persistAll(items(prefix, 10));
+
+        // When : 다시 온 10 건 + 새로운 5 건
+        int inserted = itemRepository.upsertAll(items(prefix, 15));
+
+        // Then
+        assertThat(inserted).isEqualTo(5);
+        assertThat(itemRepository.findAllById(items(prefix, 15).stream().map(Item::getId).collect(Collectors.toList())))
+                .hasSize(15);
+    }
+
+    private static List<Item> items(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Item(prefix + "-" + i))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.support.LongKeyedMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 버킷이 여러 개면 다른 스레드에서 조회한다. -> 저장한 데이터가 보이도록 테스트를 트랜잭션으로 묶지 않는다.
+// 버킷을 작게 해서 키가 여러 버킷으로 나뉘도록 한다.
+// 속성이 달라서 컨텍스트를 따로 띄운다. -> 공유 TCP DB 에 ddl-auto 를 다시 돌리지 않도록 전용 메모리 DB 를 쓴다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:member-bulk-lookup;DB_CLOSE_DELAY=-1",
+        "member.bulk-lookup.max-bucket-size=4"
+})
+class MemberBulkLookupTest {
+
+    @Autowired
+    MemberBulkLookup memberBulkLookup;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    public void findAllByIdInPaddedBuckets() {
+        // Given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Member("bulk" + i, i));
+        }
+        memberRepository.saveAll(members);
+
+        long[] ids = new long[members.size() + 2];
+        for (int i = 0; i < members.size(); i++) {
+            ids[i] = members.get(i).getId();
+        }
+        ids[10] = members.get(0).getId(); // 중복
+        ids[11] = -1L; // 없는 id
+        double fourBefore = meterRegistry.counter("member.bulk-lookup.queries", "bucket", "4").count();
+
+        // When : 키 11 개 -> 4 + 4 + 3 (-> 4 로 채움)
+        LongKeyedMap<Member> result = memberBulkLookup.findAllById(ids);
+
+        // Then
+        assertThat(result.size()).isEqualTo(10);
+        assertThat(result.get(members.get(3).getId()).getUsername()).isEqualTo("bulk3");
+        assertThat(result.containsKey(-1L)).isFalse();
+        assertThat(meterRegistry.counter("member.bulk-lookup.queries", "bucket", "4").count()).isEqualTo(fourBefore + 3);
+    }
+
+    @Test
+    public void findAllByUsername() {
+        // Given : 같은 username 두 명
+        String username = "bulkName" + UUID.randomUUID().toString().substring(0, 8);
+        memberRepository.save(new Member(username, 10));
+        memberRepository.save(new Member(username, 20));
+        memberRepository.save(new Member(username + "Other", 30));
+
+        // When
+        Map<String, List<Member>> result = memberBulkLookup.findAllByUsername(
+                new String[]{username, username + "Other", username, "bulkNoSuchName"});
+
+        // Then
+        assertThat(result.get(username)).extracting(Member::getAge).containsExactlyInAnyOrder(10, 20);
+        assertThat(result.get(username + "Other")).hasSize(1);
+        assertThat(result).doesNotContainKey("bulkNoSuchName");
+    }
+
+    @Test
+    public void paddedSize() {
+        assertThat(MemberBulkLookup.paddedSize(1)).isEqualTo(1);
+        assertThat(MemberBulkLookup.paddedSize(3)).isEqualTo(4);
+        assertThat(MemberBulkLookup.paddedSize(4)).isEqualTo(4);
+        assertThat(MemberBulkLookup.paddedSize(5)).isEqualTo(8);
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.entity.Member;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 로더는 자기 스레드의 별도 트랜잭션에서 조회한다. -> 저장한 데이터가 보이도록 테스트를 트랜잭션으로 묶지 않는다.
+// window 를 넉넉하게 줘서 아래 조회들이 한 배치에 모이도록 한다.
+// 속성이 달라서 컨텍스트를 따로 띄운다. -> 공유 TCP DB 에 ddl-auto 를 다시 돌리지 않도록 전용 메모리 DB 를 쓴다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:member-loader;DB_CLOSE_DELAY=-1",
+        "member.loader.window=200ms"
+})
+class MemberByIdLoaderTest {
+
+    @Autowired
+    MemberByIdLoader memberByIdLoader;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void coalesceAndBatch() {
+        // Given
+        Member memberA = memberRepository.save(new Member("loaderA", 10));
+        Member memberB = memberRepository.save(new Member("loaderB", 20));
+        double queriesBefore = meterRegistry.counter("member.loader.queries").count();
+
+        // When
+        CompletableFuture<Member> first = memberByIdLoader.load(memberA.getId());
+        CompletableFuture<Member> second = memberByIdLoader.load(memberA.getId());
+        CompletableFuture<Member> other = memberByIdLoader.load(memberB.getId());
+        CompletableFuture<Member> missing = memberByIdLoader.load(-1L);
+
+        // Then
+        assertThat(second).isSameAs(first); // 같은 id 는 하나로 합쳐진다.
+        assertThat(first.join().getUsername()).isEqualTo("loaderA");
+        assertThat(other.join().getUsername()).isEqualTo("loaderB");
+        assertThat(missing.join()).isNull();
+        assertThat(meterRegistry.counter("member.loader.queries").count() - queriesBefore).isEqualTo(1); // in 쿼리 한 번
+        assertThat(meterRegistry.counter("member.loader.requests", "result", "coalesced").count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void findByIdTimesOutAndCloseFailsWaitingRequests() {
+        // Given - window 가 timeout 보다 길어서 조회가 나가기 전에 timeout 이 난다.
+        MemberByIdLoader slow = new MemberByIdLoader(memberRepository, transactionManager, new SimpleMeterRegistry(),
+                dataSource, Duration.ofMinutes(1), 100, Duration.ofMillis(100));
+        try {
+            // When / Then
+            assertThatThrownBy(() -> slow.findById(1L)).isInstanceOf(QueryTimeoutException.class);
+
+            CompletableFuture<Member> waiting = slow.load(2L);
+            slow.close();
+            assertThat(waiting).isCompletedExceptionally(); // 실행되지 못한 배치를 기다리던 요청도 끝난다.
+        } finally {
+            slow.close();
+        }
+    }
+}
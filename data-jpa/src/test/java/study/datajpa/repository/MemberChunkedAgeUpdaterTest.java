@@ -0,0 +1,79 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 청크마다 별도 트랜잭션으로 커밋한다. -> 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class MemberChunkedAgeUpdaterTest {
+
+    // 다른 테스트의 회원 나이보다 훨씬 크게 잡는다. (bulkAgePlus 는 age >= 조건이라 더 큰 나이는 모두 바뀐다)
+    private static final int CHUNKED_AGE = 910_000;
+    private static final int EVICT_AGE = 920_000;
+
+    @Autowired
+    MemberChunkedAgeUpdater memberChunkedAgeUpdater;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void bulkAgePlusInChunks() {
+        // Given - 다른 테스트가 쓰지 않는 나이 대역 (CHUNKED_AGE ~). DB 를 공유하기 때문에 전체 건수가 아니라 만든 회원만 확인한다.
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(memberRepository.save(new Member("chunked" + i, CHUNKED_AGE + i)).getId());
+        }
+        List<BulkUpdateProgress> reports = new ArrayList<>();
+
+        // When
+        BulkUpdateProgress result = memberChunkedAgeUpdater.bulkAgePlus(CHUNKED_AGE, 2, Duration.ZERO, reports::add);
+
+        // Then
+        assertThat(result.getUpdatedRows()).isGreaterThanOrEqualTo(ids.size());
+        assertThat(result.getChunks()).isGreaterThanOrEqualTo(3);
+        assertThat(reports).isNotEmpty();
+        for (int i = 0; i < ids.size(); i++) {
+            Member member = memberRepository.findById(ids.get(i)).get();
+            assertThat(member.getAge()).isEqualTo(CHUNKED_AGE + i + 1);
+            assertThat(member.getVersion()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void evictOnlyUpdatedMembers() {
+        // Given
+        Member updated = memberRepository.save(new Member("chunkedEvict", EVICT_AGE));
+        Member untouched = memberRepository.save(new Member("chunkedKeep", 10));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member managedUpdated = em.find(Member.class, updated.getId());
+            Member managedUntouched = em.find(Member.class, untouched.getId());
+
+            // When
+            memberChunkedAgeUpdater.bulkAgePlus(EVICT_AGE);
+
+            // Then - 바뀐 회원만 영속성 컨텍스트에서 내려간다.
+            assertThat(em.contains(managedUpdated)).isFalse();
+            assertThat(em.contains(managedUntouched)).isTrue();
+            assertThat(em.find(Member.class, updated.getId()).getAge()).isEqualTo(EVICT_AGE + 1);
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 롤백 / 커밋 뒤의 캐시 상태를 보기 때문에 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class MemberCountCacheTest {
+
+    private static final String QUERY = "countCacheTest";
+
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void countInsideRolledBackWriteIsNotCached() {
+        // Given
+        memberCountCache.invalidate();
+
+        // When : 쓰기 트랜잭션 안에서 자기 변경이 섞인 count 를 센 뒤 롤백
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.save(new Member("countRollback", 10));
+            memberCountCache.count(QUERY, List.of(), () -> 1_000L);
+            status.setRollbackOnly();
+        });
+
+        // Then : 다시 센다.
+        assertThat(memberCountCache.count(QUERY, List.of(), () -> 7L)).isEqualTo(7L);
+        assertThat(memberCountCache.count(QUERY, List.of(), () -> 8L)).isEqualTo(7L); // 트랜잭션 밖에서 센 값은 캐시한다.
+    }
+}
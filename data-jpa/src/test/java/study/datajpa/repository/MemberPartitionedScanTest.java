@@ -0,0 +1,117 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 파티션마다 다른 스레드의 트랜잭션에서 읽는다. -> 저장한 데이터가 보이도록 테스트를 트랜잭션으로 묶지 않는다.
+// 큐를 작게 해서 consumer 가 느릴 때 파티션 스레드가 기다리는 경로도 탄다.
+// 속성이 달라서 컨텍스트를 따로 띄운다. -> 공유 TCP DB 에 ddl-auto 를 다시 돌리지 않도록 전용 메모리 DB 를 쓴다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:member-scan;DB_CLOSE_DELAY=-1",
+        "member.scan.queue-capacity=2"
+})
+class MemberPartitionedScanTest {
+
+    @Autowired
+    MemberPartitionedScan memberPartitionedScan;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void scanAllPartitions() {
+        // Given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(new Member("scan" + i, i));
+        }
+        memberRepository.saveAll(members);
+        long total = memberRepository.count();
+
+        // When
+        Set<Long> scanned = new HashSet<>();
+        long rows = memberPartitionedScan.scan(7, member -> scanned.add(member.getId()));
+
+        // Then : 한 건도 빠지거나 겹치지 않는다.
+        assertThat(rows).isEqualTo(total);
+        assertThat(scanned).hasSize((int) total);
+        assertThat(scanned).containsAll(members.stream().map(Member::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void consumerFailureStopsScan() {
+        // Given
+        memberRepository.save(new Member("scanFail", 10));
+
+        // When / Then
+        assertThatThrownBy(() -> memberPartitionedScan.scan(3, member -> {
+            throw new IllegalStateException("consumer 실패");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("consumer 실패");
+    }
+
+    @Test
+    public void scanParallelOnPartitionThreads() {
+        // Given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(new Member("parallelScan" + i, i));
+        }
+        memberRepository.saveAll(members);
+        long total = memberRepository.count();
+
+        // When - consumer 는 파티션 스레드에서 동시에 불린다.
+        Set<Long> scanned = ConcurrentHashMap.newKeySet();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        long rows = memberPartitionedScan.scanParallel(7, member -> {
+            scanned.add(member.getId());
+            threads.add(Thread.currentThread().getName());
+        });
+
+        // Then
+        assertThat(rows).isEqualTo(total);
+        assertThat(scanned).hasSize((int) total);
+        assertThat(scanned).containsAll(members.stream().map(Member::getId).collect(Collectors.toList()));
+        assertThat(threads).allMatch(name -> name.startsWith("member-scan-"));
+    }
+
+    @Test
+    public void partitionFailureCancelsQueuedPartitions() {
+        // Given - 파티션보다 회원이 많게
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            members.add(new Member("parallelScanFail" + i, i));
+        }
+        memberRepository.saveAll(members);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When / Then - 실패한 뒤에는 새 파티션을 시작하지 않는다. -> consumer 는 동시에 돌던 파티션 (스레드 수) 만큼만 불린다.
+        assertThatThrownBy(() -> memberPartitionedScan.scanParallel(50, member -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("consumer 실패");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("consumer 실패");
+        assertThat(calls.get()).isLessThanOrEqualTo(4); // member.scan.parallelism 기본값
+    }
+
+    @Test
+    public void split() {
+        // 10 개 id 를 3 개로 : 4 + 3 + 3
+        assertThat(MemberPartitionedScan.split(1, 10, 3))
+                .containsExactly(new long[]{1, 4}, new long[]{5, 7}, new long[]{8, 10});
+        // 범위가 파티션 수보다 좁다.
+        assertThat(MemberPartitionedScan.split(5, 6, 4)).hasSize(2);
+    }
+}
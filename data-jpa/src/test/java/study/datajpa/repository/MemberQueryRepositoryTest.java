@@ -0,0 +1,58 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Transactional
+@SpringBootTest
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    public void streamAllMemberDtos() {
+        // Given
+        Team team = new Team("streamTeam");
+        em.persist(team);
+        Member first = new Member("stream1", 10, team);
+        Member second = new Member("stream2", 20);
+        Member third = new Member("stream3", 30, team);
+        em.persist(first);
+        em.persist(second);
+        em.persist(third);
+        em.flush();
+        em.clear();
+        Set<Long> ids = Set.of(first.getId(), second.getId(), third.getId());
+
+        // When - fetchSize 보다 많은 행을 커서로 읽는다.
+        List<MemberDto> result;
+        try (Stream<MemberDto> members = memberQueryRepository.streamAllMemberDtos(2)) {
+            result = members.filter(member -> ids.contains(member.getId()))
+                    .collect(Collectors.toList());
+        }
+
+        // Then - id 순서, 팀이 없는 회원도 나온다 (left join). DTO 조회라서 영속성 컨텍스트에 아무것도 쌓이지 않는다.
+        assertThat(result).extracting(MemberDto::getUsername).containsExactly("stream1", "stream2", "stream3");
+        assertThat(result).extracting(MemberDto::getTeamName).containsExactly("streamTeam", null, "streamTeam");
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+}
@@ -1,18 +1,28 @@
 package study.datajpa.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.datajpa.dto.*;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.support.SqlScope;
+import study.datajpa.support.SqlStatementCounter;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +39,27 @@ class MemberRepositoryTest {
     @Autowired
     TeamRepository teamRepository;
 
+    @Autowired
+    MemberPagingRepository memberPagingRepository;
+
+    @Autowired
+    SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    MemberSpecQueryCache memberSpecQueryCache;
+
+    @Autowired
+    ExampleSpecificationCompiler exampleSpecificationCompiler;
+
+    @Autowired
+    OpenProjectionCompiler openProjectionCompiler;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @PersistenceContext
     EntityManager em;
 
@@ -159,6 +190,36 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void repositoryMetrics() {
+        // Given
+        memberRepository.save(new Member("AAA", 10));
+        memberRepository.save(new Member("BBB", 20));
+
+        // When
+        List<Member> members = memberRepository.findByNames(Arrays.asList("AAA", "BBB"));
+
+        // Then
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tags("repository", "MemberRepository", "method", "findByNames(Collection)", "query.type", "query", "outcome", "success")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("repository.rows").tags("method", "findByNames(Collection)").summary().max())
+                .isGreaterThanOrEqualTo(members.size());
+    }
+
+    // 오버로드는 method 태그가 달라야 한다.
+    @Test
+    public void repositoryMetricsSeparateOverloads() {
+        memberRepository.findKeysetPageAfter("metrics", 0L, PageRequest.of(0, 1));
+
+        assertThat(meterRegistry.find("repository.invocations")
+                .tags("method", "findKeysetPageAfter(String,Long,Pageable)").timer()).isNotNull();
+        assertThat(meterRegistry.find("repository.invocations")
+                .tags("method", "findKeysetPageAfter").timer()).isNull();
+    }
+
     @Test
     public void returnType() {
         Member member1 = new Member("AAA", 10);
@@ -251,6 +312,107 @@ class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue();
     }
 
+    // count 캐시는 커밋된 데이터만 보는 count 만 캐시한다. -> 테스트 트랜잭션 없이, 저장마다 커밋한다.
+    // 다른 테스트가 커밋한 회원과 섞이지 않도록 이 테스트만 쓰는 나이를 쓴다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void pagingCachedCount() {
+        // Given
+        int age = 330;
+        memberRepository.save(new Member("pagingCount1", age));
+        memberRepository.save(new Member("pagingCount2", age));
+        memberRepository.save(new Member("pagingCount3", age));
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "username"));
+        Page<Member> before = memberPagingRepository.findByAge(age, pageRequest); // count 쿼리 1번 -> 캐시
+
+        // When
+        new TransactionTemplate(transactionManager) // 리포지토리를 거치지 않았다. -> 캐시가 비워지지 않는다.
+                .executeWithoutResult(status -> em.persist(new Member("pagingCount4", age)));
+        Page<Member> cached = memberPagingRepository.findByAge(age, pageRequest);
+
+        memberRepository.save(new Member("pagingCount5", age)); // save 가 커밋된 뒤 캐시를 비운다.
+        Page<Member> invalidated = memberPagingRepository.findByAge(age, pageRequest);
+
+        // Then
+        assertThat(before.getTotalElements()).isEqualTo(3);
+        assertThat(cached.getTotalElements()).isEqualTo(3); // 캐시된 count
+        assertThat(invalidated.getTotalElements()).isEqualTo(5);
+        assertThat(invalidated.getContent()).extracting("username").containsExactly("pagingCount5", "pagingCount4");
+    }
+
+    // approximate 모드의 전체 회원 추정치는 조건 없는 count(m) 에만 쓴다. count(m.username) 는 null username 을 빼고 센다.
+    // null username 회원이 다른 테스트에 남지 않도록 롤백한다.
+    @Test
+    @Rollback
+    public void approximateCountOnlyForUnfilteredCount() {
+        // Given
+        em.persist(new Member(null, 10));
+        em.persist(new Member("approximate", 10));
+        em.flush();
+        MemberPagingRepository approximatePaging = new MemberPagingRepository(memberRepository,
+                new MemberCountCache(Duration.ofSeconds(30), true, Duration.ofMinutes(10)));
+        PageRequest pageRequest = PageRequest.of(0, 1);
+
+        // When
+        long all = approximatePaging.findAll(pageRequest).getTotalElements(); // 추정치를 채운다.
+        long withUsername = approximatePaging.findByAgeDetachCountQuery(10, pageRequest).getTotalElements();
+
+        // Then
+        assertThat(all).isEqualTo(memberRepository.count());
+        assertThat(withUsername).isEqualTo(memberRepository.countUsername());
+        assertThat(withUsername).isLessThan(all);
+    }
+
+    @Test
+    public void keysetPaging() {
+        // Given
+        memberRepository.save(new Member("keyset1", 10));
+        memberRepository.save(new Member("keyset2", 10));
+        memberRepository.save(new Member("keyset2", 10)); // username 이 같으면 id 로 순서를 정한다.
+        memberRepository.save(new Member("keyset3", 10));
+
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        // When
+        // 커서 이전 위치에서 시작 -> "keyset1" 부터 읽는다.
+        MemberCursor start = new MemberCursor("keyset0", Long.MAX_VALUE);
+        Slice<Member> first = memberRepository.findKeysetPageAfter(start.getUsername(), start.getId(), pageRequest);
+
+        // 커서는 문자열로 왕복해도 같은 위치를 가리켜야 한다.
+        Member last = first.getContent().get(first.getContent().size() - 1);
+        MemberCursor cursor = MemberCursor.decode(MemberCursor.of(last).encode());
+        Slice<Member> second = memberRepository.findKeysetPageAfter(cursor.getUsername(), cursor.getId(), pageRequest);
+
+        // Then
+        assertThat(first.getContent()).extracting("username").containsExactly("keyset1", "keyset2");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting("username").containsExactly("keyset2", "keyset3");
+        assertThat(second.getContent().get(0).getId()).isGreaterThan(last.getId());
+    }
+
+    // username 이 null 인 회원은 맨 앞에 모이고, 커서가 null 회원에서 끝나도 건너뛰지 않는다.
+    @Test
+    @Rollback
+    public void keysetPagingNullUsername() {
+        // Given
+        Member firstNull = memberRepository.save(new Member(null, 10));
+        Member secondNull = memberRepository.save(new Member(null, 10));
+
+        // When - null 회원 위치의 커서도 문자열로 왕복한다.
+        MemberCursor afterFirst = MemberCursor.decode(MemberCursor.of(firstNull).encode());
+        MemberCursor afterSecond = MemberCursor.decode(MemberCursor.of(secondNull).encode());
+        Slice<Member> fromFirst = memberRepository.findKeysetPageAfter(afterFirst, PageRequest.of(0, 1));
+        Slice<Member> fromSecond = memberRepository.findKeysetPageAfter(afterSecond, PageRequest.of(0, 100));
+
+        // Then
+        assertThat(afterFirst.getUsername()).isNull();
+        assertThat(afterFirst.getId()).isEqualTo(firstNull.getId());
+        assertThat(fromFirst.getContent()).extracting("id").containsExactly(secondNull.getId());
+        assertThat(fromSecond.getContent()).extracting("username").doesNotContainNull();
+        assertThat(new MemberCursor("null", 1L).encode()).isNotEqualTo(new MemberCursor(null, 1L).encode());
+    }
+
     @Test
     public void bulkUpdate() {
         // Given
@@ -285,6 +447,26 @@ class MemberRepositoryTest {
         // 벌크연산처럼 JPA 가 인식하지 못 하기 때문에, 플러쉬 - 클리어 작업이 필요하다.
     }
 
+    @Test
+    public void saveAllBatched() {
+        // Given
+        Team team = new Team("batchTeam");
+        teamRepository.save(team);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            members.add(new Member("batch" + i, 99, team));
+        }
+
+        // When
+        int saved = memberRepository.saveAllBatched(members, 10); // 10 건마다 flush + clear
+
+        // Then
+        assertThat(saved).isEqualTo(25);
+        assertThat(em.contains(members.get(0))).isFalse(); // clear 되었기 때문에 준영속 상태
+        assertThat(memberRepository.countByAge(99)).isEqualTo(25);
+    }
+
     @Test
     public void findMemberLazy() {
         // Given
@@ -317,6 +499,45 @@ class MemberRepositoryTest {
         // EC2 -> RDS 오우 쉩;; 개 느림
     }
 
+    @Test
+    public void findMemberLazySqlCount() {
+        // Given
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamB);
+        memberRepository.save(member1);
+        memberRepository.save(member2);
+
+        em.flush();
+        em.clear();
+
+        // When
+        SqlScope entityGraph;
+        try (SqlScope scope = sqlStatementCounter.start("entityGraph")) {
+            for (Member member : memberRepository.findAll()) {
+                member.getTeam().getName();
+            }
+            entityGraph = scope;
+        }
+
+        em.clear();
+
+        SqlScope lazy;
+        try (SqlScope scope = sqlStatementCounter.start("lazy")) {
+            em.find(Member.class, member1.getId()).getTeam().getName();
+            em.find(Member.class, member2.getId()).getTeam().getName();
+            lazy = scope;
+        }
+
+        // Then
+        assertThat(entityGraph.getStatementCount()).isEqualTo(1); // 페치 조인 1번
+        assertThat(lazy.getRepeatedShapes(2)).isNotEmpty(); // 같은 모양의 회원 조회가 반복 -> 1 + N 의심
+    }
+
     @Test
     public void queryHint() {
         // Given
@@ -391,6 +612,29 @@ class MemberRepositoryTest {
         assertThat(members.size()).isEqualTo(1);
     }
 
+    @Test
+    public void specShapeCache() {
+        // Given
+        Team team = new Team("shapeTeam");
+        em.persist(team);
+        em.persist(new Member("shapeMember1", 10, team));
+        em.persist(new Member("shapeMember2", 10, team));
+        em.flush();
+        em.clear();
+
+        // When : 조합 순서와 값이 달라도 모양은 같다.
+        double hitsBefore = memberSpecQueryCache.getHitCount();
+        List<Member> first = memberRepository.findAllShaped(MemberSpec.username("shapeMember1").and(MemberSpec.teamName("shapeTeam")));
+        List<Member> second = memberRepository.findAllShaped(MemberSpec.teamName("shapeTeam").and(MemberSpec.username("shapeMember2")));
+
+        // Then
+        assertThat(first).extracting("username").containsExactly("shapeMember1");
+        assertThat(second).extracting("username").containsExactly("shapeMember2");
+        assertThat(memberSpecQueryCache.getHitCount() - hitsBefore).isGreaterThanOrEqualTo(1);
+        assertThat(MemberSpec.teamName(null).and(MemberSpec.username("a")).getShape())
+                .isEqualTo(MemberSpec.username("b").getShape()); // 빈 조건은 모양에 들어가지 않는다.
+    }
+
     @Test
     public void queryByExample() {
         // Given
@@ -424,6 +668,41 @@ class MemberRepositoryTest {
         assertThat(members.get(0).getUsername()).isEqualTo("member1");
     }
 
+    @Test
+    public void queryByExampleCompiled() {
+        // Given
+        Team team = new Team("qbeTeam");
+        em.persist(team);
+        em.persist(new Member("qbeMember1", 10, team));
+        em.persist(new Member("qbeMember2", 10, team));
+        em.flush();
+        em.clear();
+
+        Member probe = new Member("qbeMember1"); // age 는 기본값 0 -> 조건에서 빠진다.
+        probe.setTeam(new Team("qbeTeam"));
+
+        // When
+        List<Member> members = memberRepository.findAllByExample(Example.of(probe));
+
+        // Then
+        assertThat(members).extracting("username").containsExactly("qbeMember1");
+    }
+
+    @Test
+    public void queryByExampleJoinsOnlyWhenNeeded() {
+        // Given : 팀에 조건이 없다.
+        Member probe = new Member("qbeMember1");
+        probe.setTeam(new Team(null));
+
+        // When
+        Specification<Member> spec = exampleSpecificationCompiler.compile(Example.of(probe));
+
+        // Then
+        assertThat(spec).isInstanceOf(ShapedSpecification.class);
+        assertThat(((ShapedSpecification<Member>) spec).getShape()).isEqualTo("username =");
+        assertThat(((ShapedSpecification<Member>) spec).toJpql("select m from Member m")).doesNotContain("join");
+    }
+
     @Test
     void projections() {
         // Given
@@ -450,6 +729,83 @@ class MemberRepositoryTest {
         }
     }
 
+    // 연관 엔티티를 읽는 SpEL -> 컬럼만으로 만들 수 없다.
+    public interface UsernameWithTeam {
+        @Value("#{target.username + ' ' + target.team.name}")
+        String getUsernameWithTeam();
+    }
+
+    @Test
+    public void openProjectionSelectsTouchedColumns() {
+        // Given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("projected1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        // When
+        SqlScope projected;
+        List<UsernameOnly> result;
+        try (SqlScope scope = sqlStatementCounter.start("openProjection")) {
+            result = memberRepository.findProjectionsByUsername("projected1");
+            projected = scope;
+        }
+
+        // Then : SpEL 이 읽는 username, age 만 조회하고, 값은 스프링 데이터 오픈 프로젝션과 같다.
+        assertThat(openProjectionCompiler.compile(UsernameOnly.class, Member.class).getProperties())
+                .containsExactly("age", "username");
+        assertThat(result).extracting(UsernameOnly::getUsername).containsExactly("projected1 10");
+        assertThat(projected.getStatementCount()).isEqualTo(1);
+        assertThat(projected.getShapes().keySet()).noneMatch(sql -> sql.toLowerCase().contains("team_id"));
+    }
+
+    @Test
+    public void openProjectionFallsBackToEntity() {
+        // Given
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("projected2", 10, teamA));
+        em.flush();
+        em.clear();
+
+        // When
+        CompiledProjection<UsernameWithTeam> compiled = openProjectionCompiler.compile(UsernameWithTeam.class, Member.class);
+        List<UsernameWithTeam> result = memberRepository.findAllProjected(MemberSpec.username("projected2"), UsernameWithTeam.class);
+
+        // Then
+        assertThat(compiled.isPrunable()).isFalse();
+        assertThat(result).extracting(UsernameWithTeam::getUsernameWithTeam).containsExactly("projected2 teamA");
+    }
+
+    // target.속성 / 리터럴 / 문자열 + 는 행에서 바로 만들고, 그 밖의 노드 (삼항, 숫자 +) 만 SpEL 로 평가한다.
+    public interface AgeLabel {
+        @Value("#{target.age >= 20 ? 'adult' : 'minor'}")
+        String getLabel();
+
+        @Value("#{target.age + 1}")
+        Integer getNextAge();
+
+        @Value("#{'[' + target.username + ']'}")
+        String getBracketed();
+    }
+
+    @Test
+    public void openProjectionCompilesGettersFromRow() {
+        // When
+        CompiledProjection<AgeLabel> compiled = openProjectionCompiler.compile(AgeLabel.class, Member.class);
+        AgeLabel label = compiled.create(new Object[]{25, "member1"}); // columns : age, username
+        AgeLabel nullName = compiled.create(new Object[]{10, null});
+
+        // Then
+        assertThat(compiled.getProperties()).containsExactly("age", "username");
+        assertThat(label.getLabel()).isEqualTo("adult");
+        assertThat(label.getNextAge()).isEqualTo(26);
+        assertThat(label.getBracketed()).isEqualTo("[member1]");
+        assertThat(nullName.getLabel()).isEqualTo("minor");
+        assertThat(nullName.getBracketed()).isEqualTo("[null]"); // SpEL 과 같다.
+    }
+
     @Test
     void findByNativeQuery() {
         // Given
@@ -0,0 +1,94 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberView;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 무효화는 트랜잭션이 끝난 뒤에도 한번 더 일어난다. -> 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class MemberUsernameCacheTest {
+
+    @Autowired
+    MemberUsernameCache memberUsernameCache;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void cacheAndInvalidateOnUpdate() {
+        // Given
+        Member member = memberRepository.save(new Member("cacheA", 10));
+        List<MemberView> first = memberUsernameCache.findByUsername("cacheA");
+
+        // When
+        List<MemberView> second = memberUsernameCache.findByUsername("cacheA");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).get().setUsername("cacheB"));
+
+        // Then
+        assertThat(second).isSameAs(first); // 캐시에서 꺼냈다.
+        assertThat(memberUsernameCache.findByUsername("cacheA")).isEmpty(); // 예전 username 도 무효화된다.
+        assertThat(memberUsernameCache.findByUsername("cacheB")).extracting("id").containsExactly(member.getId());
+    }
+
+    @Test
+    public void invalidateOnBulkUpdate() {
+        // Given
+        memberRepository.save(new Member("cacheBulk", 3000));
+        assertThat(memberUsernameCache.findOneByUsername("cacheBulk").get().getAge()).isEqualTo(3000);
+
+        // When : 벌크 연산은 엔티티 이벤트가 없다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(3000));
+
+        // Then
+        assertThat(memberUsernameCache.findOneByUsername("cacheBulk").get().getAge()).isEqualTo(3001);
+    }
+
+    @Test
+    public void repositoryViewsGoThroughCache() {
+        // Given
+        memberRepository.save(new Member("cacheView", 10));
+
+        // When
+        List<MemberView> first = memberRepository.findViewsByUsername("cacheView");
+        List<MemberView> second = memberRepository.findViewsByUsername("cacheView");
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(memberRepository.findViewByUsername("cacheView").get().getAge()).isEqualTo(10);
+    }
+
+    @Test
+    public void rolledBackWritesAreNotCached() {
+        // Given
+        Member member = memberRepository.save(new Member("cacheKeep", 10));
+        memberUsernameCache.findByUsername("cacheKeep");
+
+        // When : 쓰기 트랜잭션 안에서 새 회원 / 이름 바꾼 회원을 조회하고 롤백
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.save(new Member("cachePhantom", 10));
+            memberRepository.findById(member.getId()).get().setUsername("cacheRenamed");
+            memberRepository.flush();
+            assertThat(memberUsernameCache.findByUsername("cachePhantom")).hasSize(1); // 이 트랜잭션에서는 보인다.
+            assertThat(memberUsernameCache.findByUsername("cacheRenamed")).hasSize(1);
+            status.setRollbackOnly();
+        });
+
+        // Then : 롤백된 값은 캐시에 남지 않는다.
+        assertThat(memberUsernameCache.findCachedByUsername("cachePhantom")).isNull();
+        assertThat(memberUsernameCache.findCachedByUsername("cacheRenamed")).isNull();
+        assertThat(memberUsernameCache.findByUsername("cachePhantom")).isEmpty();
+        assertThat(memberUsernameCache.findByUsername("cacheKeep")).hasSize(1);
+    }
+}
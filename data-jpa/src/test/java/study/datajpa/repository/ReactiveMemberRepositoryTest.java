@@ -0,0 +1,56 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 조회는 스케줄러 스레드의 별도 트랜잭션에서 실행된다. -> 저장한 데이터가 보이도록 테스트를 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class ReactiveMemberRepositoryTest {
+
+    @Autowired
+    ReactiveMemberRepository reactiveMemberRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void findByUsername() {
+        // Given
+        memberRepository.save(new Member("reactiveA", 10));
+        memberRepository.save(new Member("reactiveA", 20));
+
+        // When
+        List<MemberDto> result = reactiveMemberRepository.findByUsername("reactiveA").collectList().block();
+
+        // Then
+        assertThat(result).hasSize(2);
+        assertThat(result).extracting("username").containsOnly("reactiveA");
+    }
+
+    @Test
+    public void streamAll() {
+        // Given
+        List<Long> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            saved.add(memberRepository.save(new Member("reactiveStream" + i, i)).getId());
+        }
+
+        // When : 공유 DB 라 다른 테스트의 회원도 있다. -> 끝까지 읽고 이 테스트가 저장한 회원만 본다.
+        List<Long> result = reactiveMemberRepository.streamAll(2)
+                .map(MemberDto::getId)
+                .filter(saved::contains)
+                .collectList()
+                .block();
+
+        // Then : 페이지가 나뉘어도 키셋 순서 (username, id) 대로 빠짐없이 이어진다.
+        assertThat(result).containsExactlyElementsOf(saved);
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 2차 캐시는 트랜잭션이 커밋되어야 반영된다. -> 테스트 전체에 @Transactional 을 걸지 않고, 리포지토리 호출마다 트랜잭션이 끝나게 한다.
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void findByIdSecondLevelCache() {
+        // Given
+        Team team = teamRepository.save(new Team("cachedTeam"));
+        statistics.clear();
+
+        // When
+        teamRepository.findById(team.getId()); // 호출마다 새 영속성 컨텍스트
+        teamRepository.findById(team.getId());
+
+        // Then
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0); // DB 에 가지 않았다.
+    }
+
+    @Test
+    public void findAllQueryCache() {
+        // Given
+        teamRepository.save(new Team("queryCachedTeam"));
+        teamRepository.findAll(); // 쿼리 캐시에 적재
+        statistics.clear();
+
+        // When
+        teamRepository.findAll();
+
+        // Then
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+    }
+}
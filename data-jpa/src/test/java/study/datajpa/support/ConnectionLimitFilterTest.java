@@ -0,0 +1,62 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.AsyncContext;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionLimitFilterTest {
+
+    @Test
+    public void rejectWithRetryAfterWhenNoPermit() throws Exception {
+        // Given - permit 1 개, 기다리지 않는다.
+        ConnectionLimitFilter filter = new ConnectionLimitFilter(1, Duration.ZERO);
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/members/export");
+        export.setAsyncSupported(true);
+
+        // When - 첫 요청은 비동기로 넘어간다. (StreamingResponseBody 처럼 요청 스레드는 돌아온다.)
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/members"), rejected, new MockFilterChain());
+
+        // Then - 비동기 처리가 끝나지 않았으니 permit 은 아직 잡혀 있다.
+        assertThat(filter.getAvailablePermits()).isZero();
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    public void releaseWhenAsyncCompletes() throws Exception {
+        // Given
+        ConnectionLimitFilter filter = new ConnectionLimitFilter(1, Duration.ZERO);
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/members/export");
+        export.setAsyncSupported(true);
+        filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        AsyncContext asyncContext = export.getAsyncContext();
+
+        // When - 비동기 처리가 끝난다.
+        asyncContext.complete();
+        MockHttpServletResponse next = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/members"), next, new MockFilterChain());
+
+        // Then - 반납된 permit 으로 다음 요청이 들어가고, 끝나면 다시 반납한다.
+        assertThat(next.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(filter.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    public void releaseSynchronousRequestOnReturn() throws Exception {
+        ConnectionLimitFilter filter = new ConnectionLimitFilter(2, Duration.ZERO);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/members"), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(filter.getAvailablePermits()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 속성이 달라서 컨텍스트를 따로 띄운다. -> 공유 TCP DB 에 ddl-auto 를 다시 돌리지 않도록 전용 메모리 DB 를 쓴다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:index-advisor;DB_CLOSE_DELAY=-1",
+        "index.advisor.enabled=true"
+})
+class IndexAdvisorTest {
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Test
+    public void usernameAndAgeQueriesUseIndexes() {
+        // When
+        List<IndexAdvisor.Advice> advices = indexAdvisor.analyze();
+        Map<String, IndexAdvisor.Advice> bySource = advices.stream()
+                .collect(Collectors.toMap(IndexAdvisor.Advice::getSource, Function.identity(), (a, b) -> a));
+
+        // Then : 메소드 이름 쿼리 / @Query / @NamedQuery / MemberSpec 모두 확인한다.
+        assertThat(bySource).containsKeys("MemberRepository.findListByUsername", "MemberRepository.findByNames",
+                "MemberRepository.findByUsername", "MemberRepository.countByAge", "MemberSpec.username");
+        assertThat(bySource.get("MemberRepository.findListByUsername").isFullScan()).isFalse();
+        assertThat(bySource.get("MemberRepository.findByNames").isFullScan()).isFalse();
+        assertThat(bySource.get("MemberRepository.countByAge").isFullScan()).isFalse();
+        assertThat(bySource.get("MemberSpec.username").isFullScan()).isFalse();
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 충돌은 트랜잭션이 커밋될 때 드러난다. -> 테스트 전체를 하나의 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class OptimisticRetryExecutorTest {
+
+    @Autowired
+    OptimisticRetryExecutor optimisticRetryExecutor;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void retryOnConflict() {
+        // Given
+        Member saved = memberRepository.save(new Member("optimistic", 10));
+        TransactionTemplate other = new TransactionTemplate(transactionManager);
+        other.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        optimisticRetryExecutor.run(() -> {
+            Member member = memberRepository.findById(saved.getId()).get();
+            if (attempts.incrementAndGet() == 1) {
+                // 읽은 뒤 다른 트랜잭션이 먼저 수정하고 커밋한다.
+                other.executeWithoutResult(status -> memberRepository.findById(saved.getId()).get().setAge(20));
+            }
+            member.setAge(member.getAge() + 1);
+        });
+
+        // Then
+        Member result = memberRepository.findById(saved.getId()).get();
+        assertThat(attempts.get()).isEqualTo(2); // 첫 시도는 version 충돌
+        assertThat(result.getAge()).isEqualTo(21); // 다른 트랜잭션의 수정을 덮어쓰지 않았다.
+        assertThat(result.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void bulkUpdateConflictsWithOptimisticWriter() {
+        // Given - 다른 테스트가 쓰지 않는 나이 (bulkAgePlus 는 그 이상 나이를 모두 바꾼다.)
+        int age = 990_000;
+        Member saved = memberRepository.save(new Member("optimisticBulk", age));
+        TransactionTemplate other = new TransactionTemplate(transactionManager);
+        other.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        optimisticRetryExecutor.run(() -> {
+            Member member = memberRepository.findById(saved.getId()).get();
+            if (attempts.incrementAndGet() == 1) {
+                // 읽은 뒤 벌크 수정이 먼저 커밋된다.
+                other.executeWithoutResult(status -> memberRepository.bulkAgePlus(age));
+            }
+            member.setAge(member.getAge() + 1);
+        });
+
+        // Then
+        Member result = memberRepository.findById(saved.getId()).get();
+        assertThat(attempts.get()).isEqualTo(2); // 벌크 수정이 version 을 올려서 첫 시도는 충돌
+        assertThat(result.getAge()).isEqualTo(age + 2); // 벌크 수정의 +1 을 덮어쓰지 않았다.
+        assertThat(result.getVersion()).isEqualTo(2);
+    }
+}